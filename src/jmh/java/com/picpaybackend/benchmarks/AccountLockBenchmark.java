@@ -0,0 +1,53 @@
+package com.picpaybackend.benchmarks;
+
+import com.picpaybackend.infra.AccountLockManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Compare a vazão com -t 1, -t 2, -t 4...: em "disjointPairs" cada thread transfere entre o seu
+// próprio par de contas e deve escalar com os núcleos; em "sharedPair" todas disputam o mesmo par.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountLockBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Locks {
+        final AccountLockManager lockManager = new AccountLockManager(1024, 5000);
+        final List<UUID> sharedPair = List.of(UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    @State(Scope.Thread)
+    public static class Pair {
+        List<UUID> accounts;
+
+        @Setup
+        public void setUp() {
+            accounts = List.of(UUID.randomUUID(), UUID.randomUUID());
+        }
+    }
+
+    @Param("200")
+    public int workTokens;
+
+    @Benchmark
+    public void disjointPairs(Locks locks, Pair pair) {
+        try (AccountLockManager.AccountLocks ignored = locks.lockManager.acquire(pair.accounts)) {
+            Blackhole.consumeCPU(workTokens);
+        }
+    }
+
+    @Benchmark
+    public void sharedPair(Locks locks) {
+        try (AccountLockManager.AccountLocks ignored = locks.lockManager.acquire(locks.sharedPair)) {
+            Blackhole.consumeCPU(workTokens);
+        }
+    }
+}
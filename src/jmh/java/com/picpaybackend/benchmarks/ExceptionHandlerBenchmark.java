@@ -0,0 +1,45 @@
+package com.picpaybackend.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picpaybackend.infra.ControllerExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Resposta de erro completa: criação da exceção (como o serviço faz), tratamento no
+// ControllerExceptionHandler e serialização do ExceptionDTO.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionHandlerBenchmark {
+
+    private final ControllerExceptionHandler handler = new ControllerExceptionHandler(new SimpleMeterRegistry());
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final UUID id = UUID.randomUUID();
+
+    @Benchmark
+    public byte[] notFound() throws Exception {
+        return objectMapper.writeValueAsBytes(
+            handler.threat404(new EntityNotFoundException("Usuário não encontrado com o ID: " + id)).getBody());
+    }
+
+    @Benchmark
+    public byte[] responseStatus() throws Exception {
+        return objectMapper.writeValueAsBytes(
+            handler.handleResponseStatus(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginação inválido")).getBody());
+    }
+
+    @Benchmark
+    public byte[] businessRule() throws Exception {
+        return objectMapper.writeValueAsBytes(handler.handleGeneralException(new Exception("Saldo insuficiente")).getBody());
+    }
+}
@@ -0,0 +1,96 @@
+package com.picpaybackend.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Créditos concorrentes para um único lojista, no formato do LedgerService: insere o lançamento,
+// soma em uma fatia sorteada e segura o lock da linha até o commit (holdMicros simula os round
+// trips restantes da transação). Rode com -t 8 e compare slots=1 (uma linha quente) com 4/16.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotAccountCreditBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int slots;
+
+    @Param("500")
+    public int holdMicros;
+
+    private final UUID merchant = UUID.randomUUID();
+    private String url;
+    private Connection schema;
+
+    @Setup
+    public void setUp() throws SQLException {
+        url = "jdbc:h2:mem:hot-" + slots + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000";
+        schema = DriverManager.getConnection(url, "sa", "");
+        try (Statement statement = schema.createStatement()) {
+            statement.execute("CREATE TABLE ledger_entries (id BIGINT AUTO_INCREMENT PRIMARY KEY, account_id UUID NOT NULL,"
+                + " amount BIGINT NOT NULL, slotted BOOLEAN NOT NULL)");
+            statement.execute("CREATE TABLE balance_slots (account_id UUID NOT NULL, slot INT NOT NULL,"
+                + " balance BIGINT NOT NULL, PRIMARY KEY (account_id, slot))");
+        }
+        try (PreparedStatement insert = schema.prepareStatement("INSERT INTO balance_slots VALUES (?, ?, 0)")) {
+            for (int slot = 0; slot < slots; slot++) {
+                insert.setObject(1, merchant);
+                insert.setInt(2, slot);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = schema.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement insertEntry;
+        PreparedStatement addToSlot;
+
+        @Setup
+        public void setUp(HotAccountCreditBenchmark benchmark) throws SQLException {
+            connection = DriverManager.getConnection(benchmark.url, "sa", "");
+            connection.setAutoCommit(false);
+            insertEntry = connection.prepareStatement("INSERT INTO ledger_entries (account_id, amount, slotted) VALUES (?, ?, TRUE)");
+            addToSlot = connection.prepareStatement("UPDATE balance_slots SET balance = balance + ? WHERE account_id = ? AND slot = ?");
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void credit(Session session) throws SQLException {
+        session.insertEntry.setObject(1, merchant);
+        session.insertEntry.setLong(2, 100);
+        session.insertEntry.executeUpdate();
+
+        session.addToSlot.setLong(1, 100);
+        session.addToSlot.setObject(2, merchant);
+        session.addToSlot.setInt(3, ThreadLocalRandom.current().nextInt(slots));
+        session.addToSlot.executeUpdate();
+
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(holdMicros));
+        session.connection.commit();
+    }
+}
@@ -0,0 +1,55 @@
+package com.picpaybackend.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.dtos.TransactionDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Mesmo ObjectMapper que o Spring Boot monta para os controllers (Jackson2ObjectMapperBuilder):
+// resposta do POST /transactions (Transaction com remetente e destinatário), User e leitura do corpo.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private User sender;
+    private Transaction transaction;
+    private byte[] transactionRequest;
+
+    @Setup
+    public void setUp() throws Exception {
+        sender = new User(UUID.randomUUID(), "Bench", "Sender", "12345678900", "sender@bench.com", "x",
+            Money.parse("1000.00"), UserType.COMMON);
+        User receiver = new User(UUID.randomUUID(), "Bench", "Receiver", "12345678901", "receiver@bench.com", "x",
+            Money.parse("250.50"), UserType.MERCHANT);
+        transaction = new Transaction(UUID.randomUUID(), Money.parse("99.90"), sender, receiver, LocalDateTime.now());
+        transactionRequest = objectMapper.writeValueAsBytes(new TransactionDTO(Money.parse("99.90"), sender.getId(), receiver.getId()));
+    }
+
+    @Benchmark
+    public byte[] writeTransaction() throws Exception {
+        return objectMapper.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws Exception {
+        return objectMapper.writeValueAsBytes(sender);
+    }
+
+    @Benchmark
+    public TransactionDTO readTransactionRequest() throws Exception {
+        return objectMapper.readValue(transactionRequest, TransactionDTO.class);
+    }
+}
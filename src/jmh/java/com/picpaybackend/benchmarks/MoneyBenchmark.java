@@ -0,0 +1,72 @@
+package com.picpaybackend.benchmarks;
+
+import com.picpaybackend.domain.money.Money;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Mesmas contas do createTransaction/validateTransaction (checagem de saldo, débito e crédito),
+// com BigDecimal (como era) e com Money. Rode com -prof gc para comparar também a alocação.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    @Param("1234.56")
+    public String amount;
+
+    private BigDecimal senderBalanceDecimal;
+    private BigDecimal receiverBalanceDecimal;
+    private BigDecimal amountDecimal;
+    private Money senderBalance;
+    private Money receiverBalance;
+    private Money amountMoney;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        senderBalanceDecimal = new BigDecimal("1000000000.00");
+        receiverBalanceDecimal = new BigDecimal("0.00");
+        amountDecimal = new BigDecimal(amount);
+        senderBalance = Money.parse("1000000000.00");
+        receiverBalance = Money.ZERO;
+        amountMoney = Money.parse(amount);
+    }
+
+    @Benchmark
+    public void transferBigDecimal(Blackhole blackhole) {
+        if (senderBalanceDecimal.compareTo(amountDecimal) < 0) {
+            senderBalanceDecimal = new BigDecimal("1000000000.00");
+        }
+        senderBalanceDecimal = senderBalanceDecimal.subtract(amountDecimal);
+        receiverBalanceDecimal = receiverBalanceDecimal.add(amountDecimal);
+        blackhole.consume(senderBalanceDecimal);
+        blackhole.consume(receiverBalanceDecimal);
+    }
+
+    @Benchmark
+    public void transferMoney(Blackhole blackhole) {
+        if (senderBalance.isLessThan(amountMoney)) {
+            senderBalance = Money.parse("1000000000.00");
+        }
+        senderBalance = senderBalance.minus(amountMoney);
+        receiverBalance = receiverBalance.plus(amountMoney);
+        blackhole.consume(senderBalance);
+        blackhole.consume(receiverBalance);
+    }
+
+    // Leitura e escrita do valor no JSON da requisição/resposta
+    @Benchmark
+    public String roundTripBigDecimal() {
+        return new BigDecimal(amount).toPlainString();
+    }
+
+    @Benchmark
+    public String roundTripMoney() {
+        return Money.parse(amount).toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.picpaybackend.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Simula uma rajada de requisições de transferência: cada uma espera o autorizador (I/O sem
+// limite de recurso) e depois ocupa uma conexão do pool do banco. O pool do banco tem o mesmo
+// tamanho nos dois modos; só muda quem executa as requisições (pool do Tomcat x thread virtual).
+// "virtual" exige Java 21+; em JDKs anteriores rode com -p mode=platform.
+// É só um modelo: a aplicação real toma a conexão já antes do autorizador (a transação abre
+// primeiro). A comparação medida na aplicação está em src/loadtest/threading-modes.md.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadingModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param("2000")
+    public int requests;
+
+    @Param("200")
+    public int tomcatThreads;
+
+    @Param("10")
+    public int dbPoolSize;
+
+    @Param("20")
+    public int remoteMillis;
+
+    @Param("1")
+    public int dbMillis;
+
+    private Executor executor;
+    private Semaphore dbPool;
+
+    @Setup
+    public void setUp() {
+        dbPool = new Semaphore(dbPoolSize);
+        if ("virtual".equals(mode)) {
+            SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("request-");
+            virtualThreads.setVirtualThreads(true);
+            executor = virtualThreads;
+        } else {
+            executor = Executors.newFixedThreadPool(tomcatThreads);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(remoteMillis);
+                    dbPool.acquire();
+                    try {
+                        Thread.sleep(dbMillis);
+                    } finally {
+                        dbPool.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,116 @@
+package com.picpaybackend.benchmarks;
+
+import com.picpaybackend.PicpaybackendApplication;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.dtos.UserDTO;
+import com.picpaybackend.services.TransactionService;
+import com.picpaybackend.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// createTransaction de ponta a ponta: contexto Spring completo sobre H2 em memória (modo
+// PostgreSQL), com autorizador e notificador respondendo na hora. Mede o custo do próprio
+// serviço (cache, locks, ledger, outbox, JPA), não o da rede. Cada thread usa seu par de contas.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferPipelineBenchmark {
+
+    private static final byte[] AUTHORIZED = "{\"status\":\"success\",\"data\":{\"authorization\":true}}".getBytes(StandardCharsets.UTF_8);
+
+    ConfigurableApplicationContext context;
+    TransactionService transactionService;
+    UserService userService;
+    private final AtomicInteger documents = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        // Argumentos de linha de comando têm precedência sobre o application.properties. A
+        // consolidação frequente impede que o delta do remetente cresça durante a medição.
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        context = new SpringApplicationBuilder(PicpaybackendApplication.class)
+            .web(WebApplicationType.NONE)
+            .initializers(context -> context.getBeanFactory().addBeanPostProcessor(stubRemoteServices()))
+            .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--logging.level.root=WARN",
+                "--ledger.snapshot.interval-ms=1000",
+                "--ledger.snapshot.grace-ms=1000");
+        transactionService = context.getBean(TransactionService.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Accounts {
+        UUID sender;
+        UUID receiver;
+
+        @Setup
+        public void setUp(TransferPipelineBenchmark benchmark) {
+            sender = benchmark.createUser(UserType.COMMON, Money.ofMajor(1_000_000_000L));
+            receiver = benchmark.createUser(UserType.MERCHANT, Money.ZERO);
+        }
+    }
+
+    @Benchmark
+    public Object createTransaction(Accounts accounts) throws Exception {
+        return transactionService.createTransaction(new TransactionDTO(Money.ofMinor(1), accounts.sender, accounts.receiver));
+    }
+
+    UUID createUser(UserType type, Money balance) {
+        int document = documents.incrementAndGet();
+        User user = userService.createUser(new UserDTO("Bench", type.name(), "bench-" + document, balance,
+            "bench" + document + "@bench.com", "x", type));
+        return user.getId();
+    }
+
+    // Troca só a fábrica de requisições dos dois RestTemplate; interceptores e métricas continuam
+    private static BeanPostProcessor stubRemoteServices() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RestTemplate restTemplate
+                    && (beanName.equals("authorizerRestTemplate") || beanName.equals("notifierRestTemplate"))) {
+                    restTemplate.setRequestFactory(respondWith(AUTHORIZED));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static ClientHttpRequestFactory respondWith(byte[] body) {
+        return (uri, method) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            MockClientHttpResponse response = new MockClientHttpResponse(body, HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            request.setResponse(response);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.picpaybackend.benchmarks;
+
+import com.picpaybackend.domain.id.UuidV7Generator;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Chave primária uuid com o gerador antigo (v4, o mesmo UUID.randomUUID do uuid2 do Hibernate) e
+// com o UuidV7Generator. generate mede só a geração (rode com -prof gc para ver a alocação);
+// insert grava lotes de 100 linhas numa tabela já com `preload` linhas, e no fim de cada trial o
+// tamanho da tabela e do índice sai no console.
+//
+// Sem -Djmh.args="... -p url=..." roda em H2 em arquivo, que serve para a vazão mas divide
+// páginas sempre ao meio, então o tamanho do índice quase não muda. Para o tamanho real, aponte
+// para um Postgres vazio: -p url=jdbc:postgresql://localhost:5432/bench -p user=postgres -p password=...
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidGeneratorBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"v4", "v7"})
+    public String generator;
+
+    @Param("500000")
+    public int preload;
+
+    @Param("")
+    public String url;
+
+    @Param("sa")
+    public String user;
+
+    @Param("")
+    public String password;
+
+    private Supplier<UUID> ids;
+    private String jdbcUrl;
+    private Path directory;
+    private Connection schema;
+
+    @Setup
+    public void setUp() throws Exception {
+        ids = "v7".equals(generator) ? UuidV7Generator::next : UUID::randomUUID;
+        if (url.isEmpty()) {
+            directory = Files.createTempDirectory("uuid-bench");
+            jdbcUrl = "jdbc:h2:file:" + directory.resolve("bench") + ";MODE=PostgreSQL";
+        } else {
+            jdbcUrl = url;
+        }
+        schema = DriverManager.getConnection(jdbcUrl, user, password);
+        try (Statement statement = schema.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS uuid_bench");
+            statement.execute("CREATE TABLE uuid_bench (id UUID PRIMARY KEY, sender_id UUID NOT NULL,"
+                + " amount BIGINT NOT NULL, created_at TIMESTAMP NOT NULL)");
+        }
+        schema.setAutoCommit(false);
+        try (PreparedStatement insert = schema.prepareStatement(Session.INSERT)) {
+            for (int i = 0; i < preload; i += BATCH) {
+                Session.addBatch(insert, ids);
+                insert.executeBatch();
+            }
+        }
+        schema.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        boolean postgres = jdbcUrl.startsWith("jdbc:postgresql:");
+        // VACUUM não roda dentro de transação
+        schema.setAutoCommit(true);
+        try (Statement statement = schema.createStatement()) {
+            statement.execute(postgres ? "VACUUM ANALYZE uuid_bench" : "ANALYZE");
+        }
+        try (Statement statement = schema.createStatement();
+             ResultSet result = statement.executeQuery(postgres
+                 ? "SELECT count(*), pg_relation_size('uuid_bench'), pg_relation_size('uuid_bench_pkey') FROM uuid_bench"
+                 : "SELECT count(*), DISK_SPACE_USED('UUID_BENCH'), 0 FROM uuid_bench")) {
+            result.next();
+            System.out.printf("%n[%s] linhas=%d tabela=%d KB indice=%s%n", generator, result.getLong(1),
+                result.getLong(2) / 1024, postgres ? result.getLong(3) / 1024 + " KB" : "(incluso na tabela)");
+        }
+        try (Statement statement = schema.createStatement()) {
+            statement.execute("DROP TABLE uuid_bench");
+        }
+        schema.close();
+        if (directory != null) {
+            try (var files = Files.walk(directory)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        static final String INSERT = "INSERT INTO uuid_bench (id, sender_id, amount, created_at) VALUES (?, ?, ?, ?)";
+
+        Connection connection;
+        PreparedStatement insert;
+
+        @Setup
+        public void setUp(UuidGeneratorBenchmark benchmark) throws SQLException {
+            connection = DriverManager.getConnection(benchmark.jdbcUrl, benchmark.user, benchmark.password);
+            connection.setAutoCommit(false);
+            insert = connection.prepareStatement(INSERT);
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+
+        static void addBatch(PreparedStatement insert, Supplier<UUID> ids) throws SQLException {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (int i = 0; i < BATCH; i++) {
+                insert.setObject(1, ids.get());
+                insert.setObject(2, new UUID(0, ThreadLocalRandom.current().nextInt(1000)));
+                insert.setLong(3, 100);
+                insert.setTimestamp(4, now);
+                insert.addBatch();
+            }
+        }
+    }
+
+    @Benchmark
+    public UUID generate() {
+        return ids.get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insert(Session session) throws SQLException {
+        Session.addBatch(session.insert, ids);
+        session.insert.executeBatch();
+        session.connection.commit();
+    }
+}
@@ -0,0 +1,43 @@
+package com.picpaybackend.benchmarks;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.services.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// validateTransaction isolado: caminho feliz e recusa por saldo insuficiente, que monta uma
+// Exception (com stack trace) a cada chamada.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidateTransactionBenchmark {
+
+    private final UserService userService = new UserService(null, null, null, null, null);
+    private final User sender = new User(UUID.randomUUID(), "Bench", "Sender", "1", "sender@bench.com", "x",
+        Money.parse("1000.00"), UserType.COMMON);
+    private final Money affordable = Money.parse("10.00");
+    private final Money unaffordable = Money.parse("5000.00");
+
+    @Benchmark
+    public User approved() throws Exception {
+        userService.validateTransaction(sender, affordable);
+        return sender;
+    }
+
+    @Benchmark
+    public Exception insufficientBalance() {
+        try {
+            userService.validateTransaction(sender, unaffordable);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.picpaybackend.loadtest;
+
+import java.util.Random;
+
+// Distribuição de latência do serviço simulado, em microssegundos. Formatos aceitos (tempos em ms):
+//   fixed:20              sempre 20ms
+//   uniform:5:50          uniforme entre 5 e 50ms
+//   exponential:20        exponencial com média 20ms
+//   lognormal:20:0.6      log-normal com mediana 20ms e sigma 0.6 (cauda longa, como um serviço real)
+// Opcionalmente ",spike:0.01:1500": com probabilidade 1% soma mais 1500ms (pausa de GC, fila, etc.).
+record LatencyModel(String kind, double a, double b, double spikeProbability, double spikeMillis) {
+
+    static LatencyModel parse(String spec) {
+        String[] parts = spec.split(",");
+        String[] base = parts[0].split(":");
+        double spikeProbability = 0;
+        double spikeMillis = 0;
+        if (parts.length > 1) {
+            String[] spike = parts[1].split(":");
+            if (spike.length != 3 || !spike[0].equals("spike")) {
+                throw new IllegalArgumentException("Pico de latência inválido: " + parts[1]);
+            }
+            spikeProbability = Double.parseDouble(spike[1]);
+            spikeMillis = Double.parseDouble(spike[2]);
+        }
+        return switch (base[0]) {
+            case "fixed", "exponential" -> new LatencyModel(base[0], Double.parseDouble(base[1]), 0, spikeProbability, spikeMillis);
+            case "uniform", "lognormal" -> new LatencyModel(base[0], Double.parseDouble(base[1]), Double.parseDouble(base[2]),
+                spikeProbability, spikeMillis);
+            default -> throw new IllegalArgumentException("Distribuição de latência desconhecida: " + spec);
+        };
+    }
+
+    long sampleMicros(Random random) {
+        double millis = switch (kind) {
+            case "fixed" -> a;
+            case "uniform" -> a + random.nextDouble() * (b - a);
+            case "exponential" -> -a * Math.log(1 - random.nextDouble());
+            case "lognormal" -> a * Math.exp(b * random.nextGaussian());
+            default -> throw new IllegalStateException(kind);
+        };
+        if (spikeProbability > 0 && random.nextDouble() < spikeProbability) {
+            millis += spikeMillis;
+        }
+        return Math.max(0, Math.round(millis * 1000));
+    }
+}
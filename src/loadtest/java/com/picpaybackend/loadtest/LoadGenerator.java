@@ -0,0 +1,270 @@
+package com.picpaybackend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Gerador de carga em malha aberta contra /transactions e /users: as requisições saem no ritmo
+// pedido independente de quanto a aplicação demora, e a latência é medida a partir do instante em
+// que a requisição deveria ter saído (corrige a omissão coordenada). Se o gerador ou a aplicação
+// atrasarem, o atraso aparece nos percentis em vez de sumir.
+//
+//   --target=http://localhost:8080
+//   --rps=200                          requisições por segundo
+//   --warmup=10s                       período descartado do relatório final
+//   --duration=60s                     período medido
+//   --senders=200 --merchants=20       usuários criados antes do teste
+//   --mix=transfer:85,get-user:10,create-user:5
+//   --max-in-flight=5000               acima disso a requisição é descartada (e contada)
+//   --timeout=10s
+//   --report-interval=5s
+public final class LoadGenerator {
+
+    private static final String TRANSFER = "transfer";
+    private static final String GET_USER = "get-user";
+    private static final String CREATE_USER = "create-user";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client;
+    private final String target;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final Map<String, Operation> operations = new TreeMap<>();
+    private final List<String> mixNames = new ArrayList<>();
+    private final List<Integer> mixWeights = new ArrayList<>();
+    private final int mixTotal;
+    private final List<UUID> senders = new ArrayList<>();
+    private final List<UUID> merchants = new ArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong documents = new AtomicLong(System.currentTimeMillis() % 1_000_000_000L * 1000);
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    public LoadGenerator(Options options) {
+        this.target = options.get("target", "http://localhost:8080");
+        this.timeout = options.getDuration("timeout", Duration.ofSeconds(10));
+        this.maxInFlight = options.getInt("max-in-flight", 5000);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        int total = 0;
+        for (String entry : options.get("mix", TRANSFER + ":85," + GET_USER + ":10," + CREATE_USER + ":5").split(",")) {
+            String[] parts = entry.split(":");
+            if (!List.of(TRANSFER, GET_USER, CREATE_USER).contains(parts[0])) {
+                throw new IllegalArgumentException("Operação desconhecida no mix: " + parts[0]);
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                mixNames.add(parts[0]);
+                mixWeights.add(weight);
+                operations.put(parts[0], new Operation());
+                total += weight;
+            }
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("Mix sem operações");
+        }
+        this.mixTotal = total;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        LoadGenerator generator = new LoadGenerator(options);
+        generator.setUp(options.getInt("senders", 200), options.getInt("merchants", 20));
+        generator.run(options.getInt("rps", 200),
+            options.getDuration("warmup", Duration.ofSeconds(10)),
+            options.getDuration("duration", Duration.ofSeconds(60)),
+            options.getDuration("report-interval", Duration.ofSeconds(5)));
+    }
+
+    // Remetentes com saldo de sobra para não esbarrar em "Saldo insuficiente" durante o teste
+    void setUp(int senderCount, int merchantCount) {
+        System.out.printf("[load] criando %d remetentes e %d lojistas em %s%n", senderCount, merchantCount, target);
+        for (int i = 0; i < senderCount; i++) {
+            senders.add(createUserBlocking("COMMON", "1000000000"));
+        }
+        for (int i = 0; i < merchantCount; i++) {
+            merchants.add(createUserBlocking("MERCHANT", "0"));
+        }
+    }
+
+    void run(int rps, Duration warmup, Duration duration, Duration reportInterval) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        measureFromNanos = start + warmup.toNanos();
+        long end = measureFromNanos + duration.toNanos();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> printInterval(start), reportInterval.toMillis(), reportInterval.toMillis(), TimeUnit.MILLISECONDS);
+        System.out.printf("[load] %d req/s por %ds (+%ds de aquecimento)%n", rps, duration.toSeconds(), warmup.toSeconds());
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            fire(pickOperation(), intended);
+        }
+
+        // Espera as requisições em voo antes de fechar o relatório
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        reporter.shutdownNow();
+        reporter.awaitTermination(1, TimeUnit.SECONDS);
+        printSummary(duration);
+    }
+
+    private String pickOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(mixTotal);
+        for (int i = 0; i < mixNames.size(); i++) {
+            roll -= mixWeights.get(i);
+            if (roll < 0) {
+                return mixNames.get(i);
+            }
+        }
+        return mixNames.get(mixNames.size() - 1);
+    }
+
+    private void fire(String name, long intended) {
+        Operation operation = operations.get(name);
+        boolean measured = intended >= measureFromNanos;
+        if (inFlight.get() >= maxInFlight) {
+            dropped.increment();
+            return;
+        }
+        inFlight.incrementAndGet();
+        send(buildRequest(name)).whenComplete((status, error) -> {
+            inFlight.decrementAndGet();
+            long latencyMicros = (System.nanoTime() - intended) / 1000;
+            operation.interval.recordValue(latencyMicros);
+            if (measured) {
+                operation.measured.recordValue(latencyMicros);
+                operation.statuses.computeIfAbsent(error == null ? String.valueOf(status) : "erro", key -> new LongAdder()).increment();
+            }
+        });
+    }
+
+    private HttpRequest buildRequest(String name) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (name) {
+            case TRANSFER -> {
+                int senderIndex = random.nextInt(senders.size());
+                UUID sender = senders.get(senderIndex);
+                UUID receiver = merchants.isEmpty()
+                    ? senders.get((senderIndex + 1) % senders.size())
+                    : merchants.get(random.nextInt(merchants.size()));
+                yield post("/transactions", "{\"value\":0.01,\"senderId\":\"" + sender + "\",\"receiverId\":\"" + receiver + "\"}");
+            }
+            case GET_USER -> request("/users/" + senders.get(random.nextInt(senders.size()))).GET().build();
+            default -> post("/users", userJson("COMMON", "0"));
+        };
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private UUID createUserBlocking(String type, String balance) {
+        try {
+            HttpResponse<String> response = client.send(post("/users", userJson(type, balance)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Falha ao criar usuário: " + response.statusCode() + " " + response.body());
+            }
+            JsonNode user = objectMapper.readTree(response.body());
+            return UUID.fromString(user.get("id").asText());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Aplicação inacessível em " + target, e);
+        }
+    }
+
+    // Nome e sobrenome só aceitam letras; documento e e-mail precisam ser únicos
+    private String userJson(String type, String balance) {
+        long document = documents.incrementAndGet();
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"document\":\"" + document + "\",\"balance\":" + balance
+            + ",\"email\":\"load" + document + "@loadtest.com\",\"password\":\"x\",\"userType\":\"" + type + "\"}";
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(target + path)).timeout(timeout);
+    }
+
+    private void printInterval(long start) {
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start);
+        String phase = System.nanoTime() < measureFromNanos ? "aquecimento" : "medição";
+        operations.forEach((name, operation) -> {
+            Histogram histogram = operation.interval.getIntervalHistogram();
+            if (histogram.getTotalCount() > 0) {
+                System.out.printf("[load] %4ds %-11s %-12s n=%-7d p50=%8.2fms p99=%8.2fms max=%8.2fms%n",
+                    elapsed, phase, name, histogram.getTotalCount(), millis(histogram, 50), millis(histogram, 99),
+                    histogram.getMaxValue() / 1000.0);
+            }
+        });
+        System.out.printf("[load]       em voo=%d descartadas=%d%n", inFlight.get(), dropped.sum());
+    }
+
+    private void printSummary(Duration duration) {
+        System.out.println();
+        System.out.printf("[load] resultado (%ds medidos, latência desde o instante planejado)%n", duration.toSeconds());
+        System.out.printf("%-12s %9s %8s %9s %9s %9s %9s %9s  %s%n", "operação", "req", "req/s", "p50", "p90", "p99", "p99.9", "max", "status");
+        operations.forEach((name, operation) -> {
+            Histogram histogram = operation.measured.getIntervalHistogram();
+            System.out.printf("%-12s %9d %8.1f %7.2fms %7.2fms %7.2fms %7.2fms %7.2fms  %s%n",
+                name, histogram.getTotalCount(), histogram.getTotalCount() / (double) duration.toSeconds(),
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0, new TreeMap<>(operation.statuses));
+        });
+        System.out.printf("descartadas por excesso de requisições em voo: %d%n", dropped.sum());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    // Latências em microssegundos; o intervalo alimenta o relatório periódico e o medido o final
+    private static final class Operation {
+        final Recorder interval = new Recorder(3);
+        final Recorder measured = new Recorder(3);
+        final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+}
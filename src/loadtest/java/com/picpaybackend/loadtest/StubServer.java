@@ -0,0 +1,125 @@
+package com.picpaybackend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Substituto local do autorizador (GET /authorize) e do notificador (POST /notify), com as mesmas
+// respostas do util.devi.tools. A resposta é agendada para depois da latência sorteada, então
+// milhares de requisições pendentes não ocupam milhares de threads.
+//
+//   --port=8089
+//   --authorizer-latency=lognormal:30:0.5   (ver LatencyModel)
+//   --authorizer-error-rate=0.01            fração respondida com 500
+//   --authorizer-deny-rate=0.05             fração negada (403, authorization=false)
+//   --notifier-latency=lognormal:50:0.7
+//   --notifier-error-rate=0.05              fração respondida com 504
+//
+// A aplicação aponta para cá com --http.clients.authorizer.base-url=http://localhost:8089 e
+// --http.clients.notifier.base-url=http://localhost:8089.
+public final class StubServer implements AutoCloseable {
+
+    private static final byte[] AUTHORIZED = "{\"status\":\"success\",\"data\":{\"authorization\":true}}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DENIED = "{\"status\":\"fail\",\"data\":{\"authorization\":false}}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FAILED = "{\"status\":\"error\",\"message\":\"stub failure\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final LatencyModel authorizerLatency;
+    private final LatencyModel notifierLatency;
+    private final double authorizerErrorRate;
+    private final double authorizerDenyRate;
+    private final double notifierErrorRate;
+    private final LongAdder authorizations = new LongAdder();
+    private final LongAdder notifications = new LongAdder();
+
+    public StubServer(Options options) throws IOException {
+        this.authorizerLatency = LatencyModel.parse(options.get("authorizer-latency", "lognormal:30:0.5"));
+        this.notifierLatency = LatencyModel.parse(options.get("notifier-latency", "lognormal:50:0.7"));
+        this.authorizerErrorRate = options.getDouble("authorizer-error-rate", 0);
+        this.authorizerDenyRate = options.getDouble("authorizer-deny-rate", 0);
+        this.notifierErrorRate = options.getDouble("notifier-error-rate", 0);
+
+        server = HttpServer.create(new InetSocketAddress(options.getInt("port", 8089)), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/authorize", this::authorize);
+        server.createContext("/notify", this::notify);
+    }
+
+    public static void main(String[] args) throws Exception {
+        StubServer stub = new StubServer(new Options(args));
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        Thread.currentThread().join();
+    }
+
+    public void start() {
+        server.start();
+        scheduler.scheduleAtFixedRate(() -> System.out.printf("[stub] autorizações=%d notificações=%d%n",
+            authorizations.sum(), notifications.sum()), 10, 10, TimeUnit.SECONDS);
+        System.out.printf("[stub] ouvindo em http://localhost:%d (/authorize, /notify)%n", server.getAddress().getPort());
+    }
+
+    private void authorize(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        authorizations.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double outcome = random.nextDouble();
+        if (outcome < authorizerErrorRate) {
+            respondLater(exchange, 500, FAILED, authorizerLatency.sampleMicros(random));
+        } else if (outcome < authorizerErrorRate + authorizerDenyRate) {
+            respondLater(exchange, 403, DENIED, authorizerLatency.sampleMicros(random));
+        } else {
+            respondLater(exchange, 200, AUTHORIZED, authorizerLatency.sampleMicros(random));
+        }
+    }
+
+    private void notify(HttpExchange exchange) throws IOException {
+        drain(exchange);
+        notifications.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < notifierErrorRate) {
+            respondLater(exchange, 504, FAILED, notifierLatency.sampleMicros(random));
+        } else {
+            respondLater(exchange, 200, new byte[0], notifierLatency.sampleMicros(random));
+        }
+    }
+
+    private void respondLater(HttpExchange exchange, int status, byte[] body, long delayMicros) {
+        scheduler.schedule(() -> {
+            try {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+                if (body.length > 0) {
+                    exchange.getResponseBody().write(body);
+                }
+            } catch (IOException e) {
+                // Cliente desistiu (timeout da aplicação); nada a fazer
+            } finally {
+                exchange.close();
+            }
+        }, delayMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private static void drain(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Teste de carga completo numa máquina só: stub do autorizador/notificador, aplicação apontando
+# para ele e gerador de carga. A aplicação usa o banco do application.properties (Postgres local).
+#
+#   STUB_ARGS="--authorizer-latency=lognormal:30:0.5,spike:0.01:1500 --authorizer-deny-rate=0.05"
+#   APP_ARGS="--server.tomcat.threads.max=400"
+#   LOAD_ARGS="--rps=500 --duration=120s"
+#   src/loadtest/run-local.sh
+set -euo pipefail
+cd "$(dirname "$0")/../.."
+
+STUB_PORT=${STUB_PORT:-8089}
+APP_PORT=${APP_PORT:-8080}
+
+./mvnw -B -q -Ploadtest test-compile dependency:build-classpath \
+    -Dmdep.outputFile=target/loadtest.classpath -Dmdep.includeScope=test
+CP="target/test-classes:target/classes:$(cat target/loadtest.classpath)"
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null || true' EXIT
+
+java -cp "$CP" com.picpaybackend.loadtest.StubServer --port="$STUB_PORT" ${STUB_ARGS:-} &
+pids+=($!)
+
+java -Dspring.devtools.restart.enabled=false -cp "$CP" com.picpaybackend.PicpaybackendApplication \
+    --server.port="$APP_PORT" \
+    --http.clients.authorizer.base-url="http://localhost:$STUB_PORT" \
+    --http.clients.notifier.base-url="http://localhost:$STUB_PORT" \
+    --spring.jpa.hibernate.show-sql=false \
+    --logging.level.root=WARN \
+    ${APP_ARGS:-} > target/loadtest-app.log 2>&1 &
+pids+=($!)
+
+echo "Aguardando a aplicação em http://localhost:$APP_PORT (log em target/loadtest-app.log)"
+until curl -sf "http://localhost:$APP_PORT/actuator/health" > /dev/null; do
+    kill -0 "${pids[1]}" 2>/dev/null || { echo "A aplicação não subiu; veja target/loadtest-app.log"; exit 1; }
+    sleep 1
+done
+
+java -cp "$CP" com.picpaybackend.loadtest.LoadGenerator --target="http://localhost:$APP_PORT" ${LOAD_ARGS:-}
@@ -1,49 +1,172 @@
 package com.picpaybackend.controllers;
 
-import com.picpaybackend.domain.transaction.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.BatchReversalDTO;
+import com.picpaybackend.dtos.BatchTransactionDTO;
+import com.picpaybackend.dtos.BatchTransactionResultDTO;
+import com.picpaybackend.dtos.CursorPageDTO;
 import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import com.picpaybackend.infra.NdjsonStreams;
+import com.picpaybackend.services.IdempotencyService;
+import com.picpaybackend.services.TransactionArchiveService;
+import com.picpaybackend.services.TransactionBatchService;
 import com.picpaybackend.services.TransactionService;
+import com.picpaybackend.services.TransferEngine;
 import jakarta.persistence.EntityNotFoundException;
 
+import java.net.URI;
+import java.time.YearMonth;
 import java.util.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/transactions")
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionBatchService transactionBatchService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionArchiveService archiveService;
+    private final ObjectMapper objectMapper;
+    // Presente só com transfer.engine.enabled=true
+    private final Optional<TransferEngine> transferEngine;
 
     @Autowired
-    public TransactionController(TransactionService transactionService) {
+    public TransactionController(TransactionService transactionService, TransactionBatchService transactionBatchService,
+                                 IdempotencyService idempotencyService, TransactionArchiveService archiveService,
+                                 ObjectMapper objectMapper, Optional<TransferEngine> transferEngine) {
         this.transactionService = transactionService;
+        this.transactionBatchService = transactionBatchService;
+        this.idempotencyService = idempotencyService;
+        this.archiveService = archiveService;
+        this.objectMapper = objectMapper;
+        this.transferEngine = transferEngine;
     }
 
+    // No modo engine a resposta é o resumo da transação (TransactionSummaryDTO); ela chega ao banco pela replicação
     @PostMapping
-    public ResponseEntity<Transaction> createTransaction(@RequestBody TransactionDTO transactionDTO) throws Exception{
-        Transaction transaction = transactionService.createTransaction(transactionDTO);
-        return new ResponseEntity<>(transaction, HttpStatus.OK);
+    public ResponseEntity<?> createTransaction(@RequestBody TransactionDTO transactionDTO,
+                                               @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) throws Exception{
+        if (idempotencyKey == null) {
+            return create(transactionDTO);
+        }
+
+        // O 202 também fica guardado: repetir a chave devolve o mesmo id, sem enfileirar outra transferência
+        String requestHash = IdempotencyService.hash(objectMapper.writeValueAsBytes(transactionDTO));
+        IdempotencyService.StoredResponse response = idempotencyService.execute(idempotencyKey, requestHash, () -> create(transactionDTO),
+            created -> new IdempotencyService.StoredResponse(created.getStatusCode().value(), objectMapper.writeValueAsString(created.getBody()), false));
+        return ResponseEntity.status(response.statusCode())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyService.REPLAYED_HEADER, String.valueOf(response.replayed()))
+                .body(response.body());
+    }
+
+    private ResponseEntity<?> create(TransactionDTO transactionDTO) throws Exception {
+        if (transferEngine.isEmpty()) {
+            return ResponseEntity.ok(transactionService.createTransaction(transactionDTO));
+        }
+        try {
+            return ResponseEntity.ok(transferEngine.get().transfer(transactionDTO));
+        } catch (TransferEngine.PendingTransferException e) {
+            return pending(e.getTransactionId());
+        }
+    }
+
+    // Prazo do engine esgotado: a transferência pode ainda ser aplicada, então o cliente acompanha pelo id
+    private static ResponseEntity<Map<String, Object>> pending(UUID id) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", id);
+        response.put("status", "PENDING");
+        response.put("message", "Transação em processamento. Consulte o resultado pelo ID da transação.");
+        return ResponseEntity.accepted().location(URI.create("/transactions/" + id)).body(response);
+    }
+
+    // Lotes e reversões alteram saldos pelo banco, por fora do engine
+    private void requireDatabaseMode() {
+        if (transferEngine.isPresent()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Operação indisponível com o engine de transferências ativo");
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<BatchTransactionResultDTO> createTransactions(@RequestBody BatchTransactionDTO batchTransactionDTO){
+        requireDatabaseMode();
+        BatchTransactionResultDTO result = transactionBatchService.createTransactions(batchTransactionDTO);
+        HttpStatus status = result.applied() == 0 && result.rejected() > 0 ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK;
+        return new ResponseEntity<>(result, status);
+    }
+
+    @PostMapping("/reversals")
+    public ResponseEntity<BatchTransactionResultDTO> revertTransactions(@RequestBody BatchReversalDTO batchReversalDTO){
+        requireDatabaseMode();
+        BatchTransactionResultDTO result = transactionBatchService.revertTransactions(batchReversalDTO);
+        HttpStatus status = result.applied() == 0 && result.rejected() > 0 ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK;
+        return new ResponseEntity<>(result, status);
     }
 
     @PostMapping("/reversed/{id}")
     public ResponseEntity<Map<String, Object>> revertTransaction(@PathVariable UUID id) throws Exception{
+        requireDatabaseMode();
         Map<String, Object> response = new HashMap<>();
-        Transaction transaction = transactionService.findTransactionsById(id);
-        transactionService.revertTransaction(transaction);
+        transactionService.revertTransaction(id);
         response.put("status", "OK");
         response.put("message", "Transação revertida com sucesso.");
         return ResponseEntity.ok(response);
     }
 
     @GetMapping
-    public ResponseEntity<List<Transaction>> getAllTransaction(){
-        List<Transaction> transactions = this.transactionService.getAllTransactions();
+    public ResponseEntity<CursorPageDTO<TransactionSummaryDTO>> getAllTransaction(@RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(defaultValue = "50") int size,
+                                                                                  @RequestParam(defaultValue = "false") boolean parties){
+        CursorPageDTO<TransactionSummaryDTO> transactions = this.transactionService.getTransactionsPage(cursor, size, parties);
         return new ResponseEntity<>(transactions, HttpStatus.OK);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTransactions(@RequestParam(defaultValue = "false") boolean parties){
+        StreamingResponseBody body = NdjsonStreams.<TransactionSummaryDTO>of(objectMapper,
+            consumer -> this.transactionService.streamTransactions(parties, consumer));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Meses que já saíram do banco (partições arquivadas)
+    @GetMapping("/archive")
+    public ResponseEntity<List<YearMonth>> getArchivedMonths() throws Exception{
+        return ResponseEntity.ok(archiveService.listMonths());
+    }
+
+    @GetMapping(value = "/archive/{month}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamArchivedTransactions(@PathVariable YearMonth month,
+                                                                            @RequestParam(required = false) UUID userId){
+        archiveService.requireArchived(month);
+        StreamingResponseBody body = NdjsonStreams.<TransactionSummaryDTO>of(objectMapper,
+            consumer -> archiveService.readMonth(month, userId, consumer));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getTransaction(@PathVariable UUID id,
+                                            @RequestParam(defaultValue = "false") boolean parties) throws Exception{
+        if (transferEngine.isPresent()) {
+            try {
+                Optional<TransactionSummaryDTO> resolved = transferEngine.get().unresolvedTransfer(id);
+                if (resolved.isPresent()) {
+                    return ResponseEntity.ok(resolved.get());
+                }
+            } catch (TransferEngine.PendingTransferException e) {
+                return pending(id);
+            }
+        }
+        return ResponseEntity.ok(this.transactionService.getTransactionSummary(id, parties));
+    }
+
 }
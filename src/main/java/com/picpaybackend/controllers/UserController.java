@@ -1,14 +1,34 @@
 package com.picpaybackend.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picpaybackend.domain.ledger.StatementFormat;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.TransactionDirection;
 import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.AccountBalanceDTO;
+import com.picpaybackend.dtos.CursorPageDTO;
+import com.picpaybackend.dtos.HotAccountDTO;
+import com.picpaybackend.dtos.StatementEntryDTO;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
 import com.picpaybackend.dtos.UserDTO;
+import com.picpaybackend.infra.CsvStreams;
+import com.picpaybackend.infra.GzipStreams;
+import com.picpaybackend.infra.NdjsonStreams;
+import com.picpaybackend.services.StatementService;
+import com.picpaybackend.services.TransactionService;
+import com.picpaybackend.services.TransferEngine;
 import com.picpaybackend.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,6 +39,19 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Presente só com transfer.engine.enabled=true
+    @Autowired
+    private Optional<TransferEngine> transferEngine;
+
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody UserDTO user){
         User newUser = userService.createUser(user);
@@ -26,11 +59,18 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers(){
-        List<User> users = this.userService.getAllUsers();
+    public ResponseEntity<CursorPageDTO<User>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "50") int size){
+        CursorPageDTO<User> users = this.userService.getUsersPage(cursor, size);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(){
+        StreamingResponseBody body = NdjsonStreams.<User>of(objectMapper, this.userService::streamUsers);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<User> getUser(@PathVariable UUID id) {
         Optional<User> user = Optional.ofNullable(this.userService.findUserById(id));
@@ -38,4 +78,63 @@ public class UserController {
             .orElseGet(() -> ResponseEntity.status(404).body(null));
     }
 
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<AccountBalanceDTO> getBalance(@PathVariable UUID id, @RequestParam(defaultValue = "false") boolean replay) throws Exception {
+        // No modo engine o saldo atual está em memória; o do banco fica atrás pela replicação
+        if (!replay && transferEngine.isPresent()) {
+            Optional<Money> balance = transferEngine.get().balance(id);
+            if (balance.isPresent()) {
+                return ResponseEntity.ok(new AccountBalanceDTO(id, balance.get()));
+            }
+        }
+        return ResponseEntity.ok(new AccountBalanceDTO(id, this.userService.getBalance(id, replay)));
+    }
+
+    // from inclusivo e to exclusivo, no formato ISO (2024-05-01T00:00:00)
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<CursorPageDTO<TransactionSummaryDTO>> getUserTransactions(@PathVariable UUID id,
+                                                                                    @RequestParam(defaultValue = "ALL") TransactionDirection direction,
+                                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                                    @RequestParam(required = false) String cursor,
+                                                                                    @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(this.transactionService.getUserTransactionsPage(id, direction, from, to, cursor, size));
+    }
+
+    // Extrato com saldo corrente, em CSV ou NDJSON; comprimido se o cliente aceitar gzip
+    @GetMapping("/{id}/statement")
+    public ResponseEntity<StreamingResponseBody> exportStatement(@PathVariable UUID id,
+                                                                 @RequestParam(defaultValue = "CSV") StatementFormat format,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Runnable release = this.statementService.reserveExport(id, from, to);
+        StreamingResponseBody body = format == StatementFormat.NDJSON
+            ? NdjsonStreams.<StatementEntryDTO>of(objectMapper, consumer -> this.statementService.streamStatement(id, from, to, consumer))
+            : CsvStreams.<StatementEntryDTO>of(StatementService.CSV_HEADER, StatementService::toCsv,
+                consumer -> this.statementService.streamStatement(id, from, to, consumer));
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody encoded = gzip ? GzipStreams.of(body) : body;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(format == StatementFormat.NDJSON ? MediaType.APPLICATION_NDJSON : new MediaType("text", "csv", StandardCharsets.UTF_8))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement-" + id + "." + format.name().toLowerCase() + "\"")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(outputStream -> {
+            try {
+                encoded.writeTo(outputStream);
+            } finally {
+                release.run();
+            }
+        });
+    }
+
+    @PutMapping("/{id}/hot-account")
+    public ResponseEntity<HotAccountDTO> configureHotAccount(@PathVariable UUID id, @RequestParam int slots) {
+        return ResponseEntity.ok(new HotAccountDTO(id, this.userService.configureHotAccount(id, slots)));
+    }
+
 }
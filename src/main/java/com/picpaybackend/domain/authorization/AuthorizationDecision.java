@@ -0,0 +1,7 @@
+package com.picpaybackend.domain.authorization;
+
+public enum AuthorizationDecision {
+    APPROVE,
+    DENY,
+    DEFER
+}
@@ -0,0 +1,50 @@
+package com.picpaybackend.domain.engine;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Linha única: última sequência do journal do engine já copiada para o banco. Muda na mesma
+// transação que insere as transações do lote, então cada registro é replicado exatamente uma vez.
+@Entity(name = "engine_checkpoint")
+@Table(name = "engine_checkpoint")
+public class EngineCheckpoint {
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+    @Column(name = "journal_sequence", nullable = false)
+    private long journalSequence;
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected EngineCheckpoint() {
+    }
+
+    public EngineCheckpoint(long journalSequence, LocalDateTime updatedAt) {
+        this.id = SINGLETON_ID;
+        this.journalSequence = journalSequence;
+        this.updatedAt = updatedAt;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
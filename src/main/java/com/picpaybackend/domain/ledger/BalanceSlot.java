@@ -0,0 +1,43 @@
+package com.picpaybackend.domain.ledger;
+
+import com.picpaybackend.domain.money.Money;
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+// Fatia do saldo de uma conta quente. Cada crédito soma em uma fatia sorteada, então N
+// transações concorrentes disputam N linhas em vez de uma; a leitura soma todas as fatias.
+@Entity(name = "balance_slots")
+@Table(name = "balance_slots")
+@IdClass(BalanceSlotId.class)
+public class BalanceSlot {
+    @Id
+    @Column(name = "account_id", columnDefinition = "uuid")
+    private UUID accountId;
+    @Id
+    @Column(name = "slot")
+    private int slot;
+    // Em centavos
+    @Column(name = "balance", nullable = false)
+    private long balance;
+
+    protected BalanceSlot() {
+    }
+
+    public BalanceSlot(UUID accountId, int slot) {
+        this.accountId = accountId;
+        this.slot = slot;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public Money getBalance() {
+        return Money.ofMinor(balance);
+    }
+}
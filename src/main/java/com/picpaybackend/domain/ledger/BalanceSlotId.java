@@ -0,0 +1,30 @@
+package com.picpaybackend.domain.ledger;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+public class BalanceSlotId implements Serializable {
+    private UUID accountId;
+    private int slot;
+
+    public BalanceSlotId() {
+    }
+
+    public BalanceSlotId(UUID accountId, int slot) {
+        this.accountId = accountId;
+        this.slot = slot;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BalanceSlotId that)) return false;
+        return slot == that.slot && Objects.equals(accountId, that.accountId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountId, slot);
+    }
+}
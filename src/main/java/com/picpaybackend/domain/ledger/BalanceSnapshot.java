@@ -0,0 +1,48 @@
+package com.picpaybackend.domain.ledger;
+
+import com.picpaybackend.domain.money.Money;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Saldo consolidado de uma conta com todos os lançamentos anteriores ao checkpoint do ledger.
+// Saldo atual = balance + lançamentos com created_at >= LedgerCheckpoint.asOf.
+@Entity(name = "balance_snapshots")
+@Table(name = "balance_snapshots")
+public class BalanceSnapshot {
+    @Id
+    @Column(name = "account_id", columnDefinition = "uuid")
+    private UUID accountId;
+    // Em centavos
+    @Column(name = "balance", nullable = false)
+    private long balance;
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected BalanceSnapshot() {
+    }
+
+    public BalanceSnapshot(UUID accountId, Money balance, LocalDateTime updatedAt) {
+        this.accountId = accountId;
+        this.balance = balance.minorUnits();
+        this.updatedAt = updatedAt;
+    }
+
+    public void fold(Money delta, LocalDateTime updatedAt) {
+        this.balance = Math.addExact(this.balance, delta.minorUnits());
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public Money getBalance() {
+        return Money.ofMinor(balance);
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
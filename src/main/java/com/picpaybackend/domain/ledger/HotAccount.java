@@ -0,0 +1,47 @@
+package com.picpaybackend.domain.ledger;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity(name = "hot_accounts")
+@Table(name = "hot_accounts")
+public class HotAccount {
+    @Id
+    @Column(name = "account_id", columnDefinition = "uuid")
+    private UUID accountId;
+    @Column(name = "slots", nullable = false)
+    private int slots;
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    protected HotAccount() {
+    }
+
+    public HotAccount(UUID accountId, int slots, LocalDateTime updatedAt) {
+        this.accountId = accountId;
+        this.slots = slots;
+        this.updatedAt = updatedAt;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.picpaybackend.domain.ledger;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Linha única: marca até onde os lançamentos já foram consolidados em balance_snapshots.
+// Snapshots e checkpoint mudam na mesma transação, então quem lê os dois juntos vê um par consistente.
+@Entity(name = "ledger_checkpoint")
+@Table(name = "ledger_checkpoint")
+public class LedgerCheckpoint {
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+
+    protected LedgerCheckpoint() {
+    }
+
+    public LedgerCheckpoint(LocalDateTime asOf) {
+        this.id = SINGLETON_ID;
+        this.asOf = asOf;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public LocalDateTime getAsOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+}
@@ -0,0 +1,86 @@
+package com.picpaybackend.domain.ledger;
+
+import com.picpaybackend.domain.money.Money;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Lançamento imutável: o saldo de uma conta é a soma dos seus lançamentos. Não há setters
+// de propósito; correções são feitas com novos lançamentos (ex.: reversão).
+@Entity(name = "ledger_entries")
+@Table(name = "ledger_entries", indexes = {
+    @Index(name = "idx_ledger_entries_account_slotted_created_at", columnList = "account_id, slotted, created_at"),
+    @Index(name = "idx_ledger_entries_created_at", columnList = "created_at"),
+    @Index(name = "idx_ledger_entries_transaction", columnList = "transaction_id")
+})
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "account_id", nullable = false, columnDefinition = "uuid")
+    private UUID accountId;
+    @Column(name = "transaction_id", columnDefinition = "uuid")
+    private UUID transactionId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false, length = 6)
+    private EntryDirection direction;
+    // Em centavos: mantido como long para as somas em JPQL não passarem pelo conversor
+    @Column(name = "amount", nullable = false)
+    private long amount;
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    // Lançamento de conta quente já somado a uma linha de balance_slots: fica fora do delta
+    // e da consolidação para não ser contado duas vezes.
+    @Column(name = "slotted", nullable = false)
+    private boolean slotted;
+
+    protected LedgerEntry() {
+    }
+
+    public LedgerEntry(UUID accountId, UUID transactionId, EntryDirection direction, Money amount, LocalDateTime createdAt) {
+        this.accountId = accountId;
+        this.transactionId = transactionId;
+        this.direction = direction;
+        this.amount = amount.minorUnits();
+        this.createdAt = createdAt;
+    }
+
+    public Money signedAmount() {
+        return Money.ofMinor(direction == EntryDirection.DEBIT ? -amount : amount);
+    }
+
+    public void markSlotted() {
+        this.slotted = true;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    public EntryDirection getDirection() {
+        return direction;
+    }
+
+    public Money getAmount() {
+        return Money.ofMinor(amount);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public boolean isSlotted() {
+        return slotted;
+    }
+}
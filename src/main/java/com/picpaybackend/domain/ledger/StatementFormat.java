@@ -0,0 +1,6 @@
+package com.picpaybackend.domain.ledger;
+
+public enum StatementFormat {
+    CSV,
+    NDJSON
+}
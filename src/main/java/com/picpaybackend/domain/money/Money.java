@@ -0,0 +1,128 @@
+package com.picpaybackend.domain.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Valor monetário em centavos (escala fixa de 2 casas). As operações são sobre long, sem
+// alocar BigDecimal no caminho da transferência, e estouro lança ArithmeticException em vez
+// de dar a volta silenciosamente.
+@JsonSerialize(using = MoneyJson.Serializer.class)
+@JsonDeserialize(using = MoneyJson.Deserializer.class)
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+    private static final long FACTOR = 100;
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money ofMajor(long majorUnits) {
+        return ofMinor(Math.multiplyExact(majorUnits, FACTOR));
+    }
+
+    public static Money of(BigDecimal value) {
+        try {
+            return ofMinor(value.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Valor monetário inválido (mais de " + SCALE + " casas decimais ou fora do limite): " + value);
+        }
+    }
+
+    // Formato comum ("-12.3", "10", "0.05") lido direto para centavos; notação científica e
+    // outros formatos caem no BigDecimal.
+    public static Money parse(String text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long major = 0;
+        int integerDigits = 0;
+        for (; i < length && isDigit(text.charAt(i)); i++, integerDigits++) {
+            major = Math.addExact(Math.multiplyExact(major, 10), text.charAt(i) - '0');
+        }
+        long minor = 0;
+        int fractionDigits = 0;
+        if (i < length && text.charAt(i) == '.') {
+            for (i++; i < length && isDigit(text.charAt(i)); i++, fractionDigits++) {
+                int digit = text.charAt(i) - '0';
+                if (fractionDigits < SCALE) {
+                    minor = minor * 10 + digit;
+                } else if (digit != 0) {
+                    throw new ArithmeticException("Valor monetário com mais de " + SCALE + " casas decimais: " + text);
+                }
+            }
+        }
+        if (i != length || integerDigits + fractionDigits == 0) {
+            return of(new BigDecimal(text));
+        }
+        for (int scale = Math.min(fractionDigits, SCALE); scale < SCALE; scale++) {
+            minor *= 10;
+        }
+        long units = Math.addExact(Math.multiplyExact(major, FACTOR), minor);
+        return ofMinor(negative ? -units : units);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public Money abs() {
+        return minorUnits < 0 ? negate() : this;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        long major = minorUnits / FACTOR;
+        long minor = Math.abs(minorUnits % FACTOR);
+        StringBuilder text = new StringBuilder(24);
+        if (minorUnits < 0 && major == 0) {
+            text.append('-');
+        }
+        text.append(major).append('.');
+        if (minor < 10) {
+            text.append('0');
+        }
+        return text.append(minor).toString();
+    }
+}
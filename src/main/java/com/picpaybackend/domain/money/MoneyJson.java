@@ -0,0 +1,43 @@
+package com.picpaybackend.domain.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+// No JSON o valor continua sendo um número decimal (ex.: 10.50), como era com BigDecimal.
+public final class MoneyJson {
+
+    private MoneyJson() {
+    }
+
+    public static class Serializer extends JsonSerializer<Money> {
+        @Override
+        public void serialize(Money value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeNumber(value.toString());
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Money> {
+        @Override
+        public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            switch (parser.currentToken()) {
+                case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT, VALUE_STRING -> {
+                    String text = parser.getText().trim();
+                    try {
+                        return Money.parse(text);
+                    } catch (ArithmeticException | NumberFormatException e) {
+                        throw context.weirdStringException(text, Money.class, e.getMessage());
+                    }
+                }
+                default -> {
+                    return (Money) context.handleUnexpectedToken(Money.class, parser);
+                }
+            }
+        }
+    }
+}
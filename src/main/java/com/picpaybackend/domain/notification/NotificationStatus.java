@@ -0,0 +1,8 @@
+package com.picpaybackend.domain.notification;
+
+public enum NotificationStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
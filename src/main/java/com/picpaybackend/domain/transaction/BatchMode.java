@@ -0,0 +1,6 @@
+package com.picpaybackend.domain.transaction;
+
+public enum BatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
@@ -1,29 +1,40 @@
 package com.picpaybackend.domain.transaction;
 
+import com.picpaybackend.domain.id.UuidV7Generator;
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.domain.user.User;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.UuidGenerator;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.UUID;
 
 @Entity(name="transactions")
-@Table(name="transactions")
+// Histórico por usuário (GET /users/{id}/transactions): cada índice começa pela parte e segue a
+// ordem da paginação (timestamp, id), então filtro, período, cursor e ORDER BY ... LIMIT viram
+// um único range scan. As colunas finais cobrem a projeção do resumo e o plano fica index-only,
+// sem visitar a tabela por linha lida, não importa quantas transações ela tenha.
+// idx_transactions_timestamp segue a listagem geral (GET /transactions); com a tabela particionada
+// por timestamp, a primeira página lê só a partição mais recente.
+@Table(name="transactions", indexes = {
+    @Index(name = "idx_transactions_timestamp", columnList = "timestamp, id"),
+    @Index(name = "idx_transactions_sender_timestamp", columnList = "sender_id, timestamp, id, receiver_id, amount, reversed"),
+    @Index(name = "idx_transactions_receiver_timestamp", columnList = "receiver_id, timestamp, id, sender_id, amount, reversed")
+})
 public class Transaction {
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", columnDefinition = "uuid")
     private UUID id;
+    // Em centavos (MoneyConverter)
     @Column(name = "amount")
-    private BigDecimal amount;
-    @ManyToOne
+    private Money amount;
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_id")
     private User sender;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receiver_id")
     private User receiver;
     @Column(name = "timestamp")
@@ -36,7 +47,7 @@ public class Transaction {
 
     }
 
-    public Transaction(UUID id, BigDecimal amount, User sender, User receiver, LocalDateTime timestamp) {
+    public Transaction(UUID id, Money amount, User sender, User receiver, LocalDateTime timestamp) {
         this.id = id;
         this.amount = amount;
         this.sender = sender;
@@ -52,11 +63,11 @@ public class Transaction {
         this.id = id;
     }
 
-    public BigDecimal getAmount() {
+    public Money getAmount() {
         return amount;
     }
 
-    public void setAmount(BigDecimal amount) {
+    public void setAmount(Money amount) {
         this.amount = amount;
     }
 
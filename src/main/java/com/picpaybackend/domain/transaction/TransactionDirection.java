@@ -0,0 +1,7 @@
+package com.picpaybackend.domain.transaction;
+
+public enum TransactionDirection {
+    SENT,
+    RECEIVED,
+    ALL
+}
@@ -1,13 +1,14 @@
 package com.picpaybackend.domain.user;
 
+import com.picpaybackend.domain.id.UuidV7Generator;
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.dtos.UserDTO;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.UuidGenerator;
 
 
-import java.math.BigDecimal;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -16,8 +17,7 @@ import java.util.UUID;
 public class User {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id", columnDefinition = "uuid")
     private UUID id;
 
@@ -34,15 +34,19 @@ public class User {
     private String email;
     @Column(name = "password")
     private String password;
-    @Column(name = "balance")
-    private BigDecimal balance;
+    // Derivado do ledger (snapshot + lançamentos); preenchido pelo UserService, nunca gravado
+    @Transient
+    private Money balance;
     @Enumerated(EnumType.STRING)
     private UserType userType;
+    @Version
+    @Column(name = "version")
+    private Long version;
 
     public User() {
     }
 
-    public User(UUID id, String firstName, String lastName, String document, String email, String password, BigDecimal balance, UserType userType) {
+    public User(UUID id, String firstName, String lastName, String document, String email, String password, Money balance, UserType userType) {
         this.id = id;
         this.firstName = firstName;
         this.lastName = lastName;
@@ -112,11 +116,11 @@ public class User {
         this.password = password;
     }
 
-    public BigDecimal getBalance() {
+    public Money getBalance() {
         return balance;
     }
 
-    public void setBalance(BigDecimal balance) {
+    public void setBalance(Money balance) {
         this.balance = balance;
     }
 
@@ -128,6 +132,14 @@ public class User {
         this.userType = userType;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,7 @@
+package com.picpaybackend.domain.user;
+
+import java.util.UUID;
+
+public record UserProfile(UUID id, UserType userType, String email, String document) {
+
+}
@@ -0,0 +1,13 @@
+package com.picpaybackend.dtos;
+
+import com.picpaybackend.domain.money.Money;
+
+import java.util.UUID;
+
+public record AccountBalanceDTO(UUID accountId, Money balance) {
+
+    // Usado pelas consultas do ledger, que somam centavos
+    public AccountBalanceDTO(UUID accountId, Long minorUnits) {
+        this(accountId, Money.ofMinor(minorUnits == null ? 0 : minorUnits));
+    }
+}
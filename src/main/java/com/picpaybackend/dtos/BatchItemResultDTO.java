@@ -0,0 +1,10 @@
+package com.picpaybackend.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.picpaybackend.domain.transaction.BatchItemStatus;
+
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResultDTO(int index, BatchItemStatus status, UUID transactionId, String error) {
+}
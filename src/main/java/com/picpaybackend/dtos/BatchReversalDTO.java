@@ -0,0 +1,9 @@
+package com.picpaybackend.dtos;
+
+import com.picpaybackend.domain.transaction.BatchMode;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchReversalDTO(List<UUID> transactionIds, BatchMode mode) {
+}
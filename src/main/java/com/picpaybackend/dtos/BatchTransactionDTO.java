@@ -0,0 +1,8 @@
+package com.picpaybackend.dtos;
+
+import com.picpaybackend.domain.transaction.BatchMode;
+
+import java.util.List;
+
+public record BatchTransactionDTO(List<TransactionDTO> transactions, BatchMode mode) {
+}
@@ -0,0 +1,6 @@
+package com.picpaybackend.dtos;
+
+import java.util.List;
+
+public record CursorPageDTO<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,7 @@
+package com.picpaybackend.dtos;
+
+import java.util.UUID;
+
+public record HotAccountDTO(UUID accountId, int slots) {
+
+}
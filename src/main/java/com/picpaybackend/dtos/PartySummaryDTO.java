@@ -0,0 +1,8 @@
+package com.picpaybackend.dtos;
+
+import com.picpaybackend.domain.user.UserType;
+
+import java.util.UUID;
+
+public record PartySummaryDTO(UUID id, String firstName, String lastName, UserType userType) {
+}
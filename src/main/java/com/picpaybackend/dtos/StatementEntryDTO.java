@@ -0,0 +1,13 @@
+package com.picpaybackend.dtos;
+
+import com.picpaybackend.domain.ledger.EntryDirection;
+import com.picpaybackend.domain.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// amount já com sinal (débito negativo); balance é o saldo logo após o lançamento.
+// transactionId e counterpartyId ficam nulos no saldo de abertura da conta.
+public record StatementEntryDTO(LocalDateTime timestamp, UUID transactionId, EntryDirection direction, Money amount,
+                                UUID counterpartyId, Money balance) {
+}
@@ -1,8 +1,9 @@
 package com.picpaybackend.dtos;
 
-import java.math.BigDecimal;
+import com.picpaybackend.domain.money.Money;
+
 import java.util.UUID;
 
-public record TransactionDTO(BigDecimal value, UUID senderId, UUID receiverId) {
+public record TransactionDTO(Money value, UUID senderId, UUID receiverId) {
 
 }
@@ -0,0 +1,27 @@
+package com.picpaybackend.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.user.UserType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TransactionSummaryDTO(UUID id, Money amount, LocalDateTime timestamp, boolean reversed,
+                                    UUID senderId, UUID receiverId,
+                                    PartySummaryDTO sender, PartySummaryDTO receiver) {
+
+    public TransactionSummaryDTO(UUID id, Money amount, LocalDateTime timestamp, boolean reversed,
+                                 UUID senderId, UUID receiverId) {
+        this(id, amount, timestamp, reversed, senderId, receiverId, null, null);
+    }
+
+    public TransactionSummaryDTO(UUID id, Money amount, LocalDateTime timestamp, boolean reversed,
+                                 UUID senderId, String senderFirstName, String senderLastName, UserType senderType,
+                                 UUID receiverId, String receiverFirstName, String receiverLastName, UserType receiverType) {
+        this(id, amount, timestamp, reversed, senderId, receiverId,
+            new PartySummaryDTO(senderId, senderFirstName, senderLastName, senderType),
+            new PartySummaryDTO(receiverId, receiverFirstName, receiverLastName, receiverType));
+    }
+}
@@ -1,8 +1,7 @@
 package com.picpaybackend.dtos;
 
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.domain.user.UserType;
 
-import java.math.BigDecimal;
-
-public record UserDTO(String firstName, String lastName, String document, BigDecimal balance, String email, String password, UserType userType) {
+public record UserDTO(String firstName, String lastName, String document, Money balance, String email, String password, UserType userType) {
 }
@@ -0,0 +1,126 @@
+package com.picpaybackend.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class AccountLockManager {
+
+    // Mesma ordem do tipo uuid do Postgres (comparação byte a byte sem sinal), para que a ordem
+    // dos locks em memória e a do SELECT ... FOR UPDATE ORDER BY id sejam idênticas.
+    public static final Comparator<UUID> CANONICAL_ORDER = (a, b) -> {
+        int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountLockManager.class);
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMs;
+
+    public AccountLockManager(@Value("${account-lock.stripes:1024}") int stripes,
+                              @Value("${account-lock.timeout-ms:5000}") long timeoutMs) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public static List<UUID> canonicalOrder(Collection<UUID> accountIds) {
+        TreeSet<UUID> ordered = new TreeSet<>(CANONICAL_ORDER);
+        ordered.addAll(accountIds);
+        return new ArrayList<>(ordered);
+    }
+
+    public AccountLocks acquire(Collection<UUID> accountIds) {
+        // Os stripes são travados em ordem crescente de índice: dois UUIDs podem cair em stripes
+        // com ordem invertida em relação à ordem canônica dos próprios UUIDs.
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (UUID accountId : accountIds) {
+            indexes.add(stripeIndex(accountId));
+        }
+
+        List<ReentrantLock> acquired = new ArrayList<>(indexes.size());
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    logger.warn("Tempo esgotado aguardando lock das contas {}", accountIds);
+                    throw new CannotAcquireLockException("Conta ocupada por outra transação, tente novamente");
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseAll(acquired);
+            throw new CannotAcquireLockException("Interrompido aguardando lock das contas", e);
+        } catch (RuntimeException e) {
+            releaseAll(acquired);
+            throw e;
+        }
+        return new AccountLocks(acquired);
+    }
+
+    public void lockForCurrentTransaction(Collection<UUID> accountIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Lock de contas exige uma transação ativa");
+        }
+        AccountLocks locks = acquire(accountIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locks.release();
+            }
+        });
+    }
+
+    private int stripeIndex(UUID accountId) {
+        int hash = accountId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static void releaseAll(List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    public static final class AccountLocks implements AutoCloseable {
+        private final List<ReentrantLock> locks;
+        private boolean released;
+
+        private AccountLocks(List<ReentrantLock> locks) {
+            this.locks = locks;
+        }
+
+        public void release() {
+            if (!released) {
+                released = true;
+                releaseAll(locks);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
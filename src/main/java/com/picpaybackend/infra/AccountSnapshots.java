@@ -0,0 +1,106 @@
+package com.picpaybackend.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Snapshots dos saldos do engine: snapshot-<seq>.bin com o estado logo após o registro seq do
+// journal. Formato: magic, seq, quantidade de contas, triplas (msb, lsb, saldo) e CRC32C no fim.
+// Gravado em arquivo temporário + fsync + rename; um snapshot corrompido é ignorado e a
+// recuperação usa o anterior.
+public final class AccountSnapshots {
+
+    public record Snapshot(long sequence, long[] accounts) {
+    }
+
+    private static final Pattern FILE_NAME = Pattern.compile("snapshot-(\\d{20})\\.bin");
+    private static final int MAGIC = 0x50505331;
+    private static final int HEADER_SIZE = 16;
+    private static final Logger logger = LoggerFactory.getLogger(AccountSnapshots.class);
+
+    private AccountSnapshots() {
+    }
+
+    public static Path write(Path directory, long sequence, long[] accounts) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + accounts.length * Long.BYTES + Integer.BYTES);
+        buffer.putInt(MAGIC).putLong(sequence).putInt(accounts.length / 3);
+        buffer.asLongBuffer().put(accounts);
+        int length = buffer.limit() - Integer.BYTES;
+        buffer.putInt(length, crc(buffer, length));
+        buffer.position(0);
+
+        Path target = directory.resolve(String.format("snapshot-%020d.bin", sequence));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+        return target;
+    }
+
+    // Mais recente que passa na verificação; vazio quando não há nenhum
+    public static Optional<Snapshot> loadLatest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path path = snapshots.get(i);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            int length = buffer.capacity() - Integer.BYTES;
+            if (length >= HEADER_SIZE && buffer.getInt(0) == MAGIC) {
+                int count = buffer.getInt(12);
+                if (length == HEADER_SIZE + (long) count * 3 * Long.BYTES && buffer.getInt(length) == crc(buffer, length)) {
+                    long[] accounts = new long[count * 3];
+                    buffer.position(HEADER_SIZE).limit(length);
+                    buffer.asLongBuffer().get(accounts);
+                    return Optional.of(new Snapshot(buffer.getLong(4), accounts));
+                }
+            }
+            logger.warn("Snapshot {} inválido, usando o anterior", path.getFileName());
+        }
+        return Optional.empty();
+    }
+
+    // Mantém os keep mais recentes
+    public static void prune(Path directory, int keep) throws IOException {
+        List<Path> snapshots = list(directory);
+        for (Path path : snapshots.subList(0, Math.max(0, snapshots.size() - keep))) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> FILE_NAME.matcher(path.getFileName().toString()).matches())
+                .sorted(Comparator.comparing(Path::getFileName))
+                .toList();
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, length));
+        return (int) crc.getValue();
+    }
+}
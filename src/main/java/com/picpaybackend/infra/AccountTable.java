@@ -0,0 +1,115 @@
+package com.picpaybackend.infra;
+
+import java.util.UUID;
+
+// Saldos do engine de transferências: hash aberto (sondagem linear) sobre arrays primitivos, sem
+// objeto por conta e sem boxing. O layout (msb, lsb, saldo em centavos) é o mesmo do snapshot em
+// disco e caberia num buffer off-heap sem mudar a interface. Não é thread-safe: só a thread
+// escritora do engine lê e altera.
+public class AccountTable {
+
+    private static final int MISSING = -1;
+
+    private long[] msb;
+    private long[] lsb;
+    private long[] balances;
+    private int mask;
+    private int size;
+
+    public AccountTable(int expectedAccounts) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedAccounts * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Posição da conta, ou -1. O uuid 0/0 marca posição livre e não é um id válido.
+    public int find(long idMsb, long idLsb) {
+        for (int i = slot(idMsb, idLsb); ; i = (i + 1) & mask) {
+            if (msb[i] == idMsb && lsb[i] == idLsb) {
+                return i;
+            }
+            if (msb[i] == 0 && lsb[i] == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    public int find(UUID id) {
+        return find(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    // Insere se ainda não existir; devolve false quando a conta já estava na tabela
+    public boolean open(long idMsb, long idLsb, long balance) {
+        if (find(idMsb, idLsb) != MISSING) {
+            return false;
+        }
+        if ((size + 1) * 2 > msb.length) {
+            resize();
+        }
+        put(idMsb, idLsb, balance);
+        size++;
+        return true;
+    }
+
+    public long balance(int position) {
+        return balances[position];
+    }
+
+    public void add(int position, long delta) {
+        balances[position] += delta;
+    }
+
+    // Cópia compacta (msb, lsb, saldo) para o snapshot; a thread escritora copia e outra grava
+    public long[] export() {
+        long[] copy = new long[size * 3];
+        int j = 0;
+        for (int i = 0; i < msb.length; i++) {
+            if (msb[i] != 0 || lsb[i] != 0) {
+                copy[j++] = msb[i];
+                copy[j++] = lsb[i];
+                copy[j++] = balances[i];
+            }
+        }
+        return copy;
+    }
+
+    private void resize() {
+        long[] oldMsb = msb;
+        long[] oldLsb = lsb;
+        long[] oldBalances = balances;
+        allocate(oldMsb.length << 1);
+        for (int i = 0; i < oldMsb.length; i++) {
+            if (oldMsb[i] != 0 || oldLsb[i] != 0) {
+                put(oldMsb[i], oldLsb[i], oldBalances[i]);
+            }
+        }
+    }
+
+    private void put(long idMsb, long idLsb, long balance) {
+        int i = slot(idMsb, idLsb);
+        while (msb[i] != 0 || lsb[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        msb[i] = idMsb;
+        lsb[i] = idLsb;
+        balances[i] = balance;
+    }
+
+    private void allocate(int capacity) {
+        msb = new long[capacity];
+        lsb = new long[capacity];
+        balances = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Mistura as duas metades: em UUIDv7 os bits altos são o relógio e quase não variam
+    private int slot(long idMsb, long idLsb) {
+        long h = idMsb * 0x9E3779B97F4A7C15L ^ idLsb;
+        h ^= h >>> 32;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ h >>> 29) & mask;
+    }
+}
@@ -1,13 +1,70 @@
 package com.picpaybackend.infra;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties({AuthorizationProperties.class, HttpClientProperties.class, TransferEngineProperties.class})
 public class AppConfig {
     @Bean
-    public RestTemplate  restTemplate(){
-        return new RestTemplate();
+    public RestTemplate authorizerRestTemplate(HttpClientFactory httpClientFactory){
+        return httpClientFactory.create("authorizer");
+    }
+
+    @Bean
+    public RestTemplate notifierRestTemplate(HttpClientFactory httpClientFactory){
+        return httpClientFactory.create("notifier");
+    }
+
+    // Com spring.threads.virtual.enabled=true (Java 21+) cada chamada ao autorizador ganha sua
+    // thread virtual; o limite de concorrência continua valendo via BoundedExecutor. Tomcat,
+    // @Scheduled e o executor de requisições assíncronas são trocados pelo próprio Spring Boot.
+    @Bean
+    public Executor authorizationExecutor(Environment environment, AuthorizationProperties properties){
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("authorization-");
+            virtualThreads.setVirtualThreads(true);
+            return new BoundedExecutor(virtualThreads, properties.maxConcurrency());
+        }
+
+        // Pool limitado e sem fila: quando o autorizador fica lento, o excesso de chamadas falha
+        // imediatamente em vez de acumular threads presas.
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(properties.maxConcurrency(), properties.maxConcurrency(),
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), new CustomizableThreadFactory("authorization-"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    // Entregas do dispatcher de notificações: ao contrário do autorizador, o excesso espera na
+    // fila, já que quem submete é o próprio dispatcher e ele aguarda o lote inteiro terminar.
+    @Bean
+    public Executor notificationExecutor(Environment environment,
+                                         @Value("${notification.dispatcher.parallelism:8}") int parallelism){
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor virtualThreads = new SimpleAsyncTaskExecutor("notification-");
+            virtualThreads.setVirtualThreads(true);
+            virtualThreads.setConcurrencyLimit(parallelism);
+            return virtualThreads;
+        }
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new CustomizableThreadFactory("notification-"));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
     }
 }
@@ -0,0 +1,21 @@
+package com.picpaybackend.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "authorization")
+public record AuthorizationProperties(
+    @DefaultValue("/authorize") String path,
+    @DefaultValue("2s") Duration timeout,
+    @DefaultValue("5s") Duration deadline,
+    @DefaultValue("3") int maxAttempts,
+    @DefaultValue("100ms") Duration initialBackoff,
+    @DefaultValue("1s") Duration maxBackoff,
+    @DefaultValue("64") int maxConcurrency,
+    @DefaultValue("5") int failureThreshold,
+    @DefaultValue("30s") Duration openDuration,
+    @DefaultValue("false") boolean hedgeEnabled,
+    @DefaultValue("300ms") Duration hedgeDelay) {
+}
@@ -0,0 +1,60 @@
+package com.picpaybackend.infra;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// Limita as tarefas simultâneas sem fila: acima do limite a submissão falha na hora, como o
+// pool de threads com SynchronousQueue. Usado com threads virtuais, que não têm limite próprio.
+public class BoundedExecutor implements Executor, AutoCloseable {
+
+    private final Executor delegate;
+    private final Semaphore permits;
+
+    public BoundedExecutor(Executor delegate, int maxConcurrency) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Limite de tarefas simultâneas atingido");
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    // Sem exceção checada: AutoCloseable.close() pode lançar InterruptedException, e o Spring só
+    // precisa saber que o encerramento falhou
+    @Override
+    public void close() {
+        if (delegate instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        } else if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido ao encerrar o executor", e);
+            } catch (Exception e) {
+                throw new IllegalStateException("Falha ao encerrar o executor", e);
+            }
+        }
+    }
+}
@@ -1,34 +1,47 @@
 package com.picpaybackend.infra;
 
 import com.picpaybackend.dtos.ExceptionDTO;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.server.ResponseStatusException;
 
 
 
 @RestControllerAdvice
 public class ControllerExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public ControllerExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity duplicateEntry(DataIntegrityViolationException exception){
+        count("duplicate-entry", HttpStatus.BAD_REQUEST);
         ExceptionDTO exceptionDTO = new ExceptionDTO("Usuário já cadastrado", "400");
         return ResponseEntity.badRequest().body(exceptionDTO);
     }
 
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ExceptionDTO> threat404(EntityNotFoundException exception) {
+        count("not-found", HttpStatus.NOT_FOUND);
         ExceptionDTO exceptionDTO = new ExceptionDTO(exception.getMessage(), "404");
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(exceptionDTO);
     }
 
     @ExceptionHandler(HttpClientErrorException.class)
     public ResponseEntity<ExceptionDTO> httpException(HttpClientErrorException exception) {
+        count("authorization-denied", exception.getStatusCode());
         HttpStatus status = (HttpStatus) exception.getStatusCode();
         String message = "Transação não autorizada";
         String error = String.valueOf(exception.getStatusCode().value());
@@ -38,6 +51,7 @@ public class ControllerExceptionHandler {
 
     @ExceptionHandler(HttpServerErrorException.class)
     public ResponseEntity<ExceptionDTO> handleHttpServerError(HttpServerErrorException exception) {
+        count("authorization-error", exception.getStatusCode());
         HttpStatus status = (HttpStatus) exception.getStatusCode();
         String message = "Erro inesperado ao autorizar transação";
         String error = String.valueOf(exception.getStatusCode().value());
@@ -45,9 +59,30 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(status).body(exceptionDTO);
     }
 
+    // Corpo malformado, incluindo valor monetário com mais de duas casas decimais ou fora do limite
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ExceptionDTO> handleUnreadableBody(HttpMessageNotReadableException exception) {
+        count("invalid-body", HttpStatus.BAD_REQUEST);
+        ExceptionDTO exceptionDTO = new ExceptionDTO("Corpo da requisição inválido", "400");
+        return ResponseEntity.badRequest().body(exceptionDTO);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ExceptionDTO> handleResponseStatus(ResponseStatusException exception) {
+        count("response-status", exception.getStatusCode());
+        ExceptionDTO exceptionDTO = new ExceptionDTO(exception.getReason(), String.valueOf(exception.getStatusCode().value()));
+        return ResponseEntity.status(exception.getStatusCode()).body(exceptionDTO);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ExceptionDTO> handleGeneralException(Exception exception) {
+        count("unexpected", HttpStatus.INTERNAL_SERVER_ERROR);
         ExceptionDTO exceptionDTO = new ExceptionDTO(exception.getMessage(), "500");
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(exceptionDTO);
     }
+
+    // Um contador por ramo do handler, com o status devolvido
+    private void count(String outcome, HttpStatusCode status) {
+        meterRegistry.counter("http.exceptions", "outcome", outcome, "status", String.valueOf(status.value())).increment();
+    }
 }
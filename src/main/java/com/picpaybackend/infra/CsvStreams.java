@@ -0,0 +1,41 @@
+package com.picpaybackend.infra;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public final class CsvStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CsvStreams() {
+    }
+
+    // Cada linha vem pronta do formatter (sem aspas: só números, datas, UUIDs e enums)
+    public static <T> StreamingResponseBody of(String header, Function<T, String> formatter, Consumer<Consumer<T>> source) {
+        return outputStream -> {
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            out.write(header);
+            out.write('\n');
+            try {
+                source.accept(item -> {
+                    try {
+                        out.write(formatter.apply(item));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+    }
+}
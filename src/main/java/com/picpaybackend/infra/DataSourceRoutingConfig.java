@@ -0,0 +1,76 @@
+package com.picpaybackend.infra;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+// Só entra em ação com ao menos uma réplica em datasource.routing.replicas; o DataSource do
+// Spring Boot deixa de ser criado e o primário passa a ser montado aqui, com as mesmas
+// propriedades spring.datasource.* e spring.datasource.hikari.*.
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "replicas[0].url")
+@EnableConfigurationProperties({DataSourceRoutingProperties.class, DataSourceProperties.class})
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             DataSourceRoutingProperties properties,
+                                                             Environment environment, MeterRegistry meterRegistry) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        primary.setMetricsTrackerFactory(metrics);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<DataSourceRoutingProperties.Replica> configured = properties.replicas();
+        for (int i = 0; i < configured.size(); i++) {
+            DataSourceRoutingProperties.Replica replica = configured.get(i);
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("replica-" + i);
+            pool.setJdbcUrl(replica.url());
+            pool.setUsername(replica.username());
+            pool.setPassword(replica.password());
+            pool.setMaximumPoolSize(replica.maximumPoolSize());
+            pool.setConnectionTimeout(primary.getConnectionTimeout());
+            pool.setReadOnly(true);
+            // Réplica fora do ar na subida não impede a aplicação de iniciar; a checagem a mantém fora do rodízio
+            pool.setInitializationFailTimeout(-1);
+            pool.setMetricsTrackerFactory(metrics);
+            replicas.put(pool.getPoolName(), pool);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, properties.maxLag(), properties.lagQuery());
+        routing.startLagChecks(properties.checkInterval());
+        for (String name : replicas.keySet()) {
+            Gauge.builder("datasource.replica.lag", routing, r -> r.getLagMillis(name))
+                .tag("replica", name).baseUnit("milliseconds").register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", routing, r -> r.isHealthy(name) ? 1 : 0)
+                .tag("replica", name).register(meterRegistry);
+        }
+        return routing;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,29 @@
+package com.picpaybackend.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+// Réplicas de leitura. Sem nenhuma réplica configurada o Spring Boot cria o DataSource normal.
+// lagQuery devolve o atraso em milissegundos; o padrão é o do Postgres (0 quando a réplica já
+// aplicou tudo o que recebeu, para não acusar atraso num primário ocioso).
+@ConfigurationProperties(prefix = "datasource.routing")
+public record DataSourceRoutingProperties(
+    @DefaultValue List<Replica> replicas,
+    @DefaultValue("5s") Duration maxLag,
+    @DefaultValue("1s") Duration checkInterval,
+    @DefaultValue(POSTGRES_LAG_QUERY) String lagQuery) {
+
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+        + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+        + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    public record Replica(
+        String url,
+        String username,
+        String password,
+        @DefaultValue("10") int maximumPoolSize) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.picpaybackend.infra;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+public final class GzipStreams {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private GzipStreams() {
+    }
+
+    public static StreamingResponseBody of(StreamingResponseBody body) {
+        return outputStream -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            body.writeTo(gzip);
+            gzip.finish();
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package com.picpaybackend.infra;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+public class HttpClientFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientFactory.class);
+
+    private final HttpClientProperties properties;
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final MeterRegistry meterRegistry;
+    private final List<CloseableHttpClient> pooledClients = new CopyOnWriteArrayList<>();
+
+    public HttpClientFactory(HttpClientProperties properties, RestTemplateBuilder restTemplateBuilder, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // O RestTemplateBuilder do Spring Boot já vem com a observação http.client.requests; aqui só
+    // trocamos a tag client.name (por padrão o host) pelo nome lógico do cliente.
+    public RestTemplate create(String name) {
+        HttpClientProperties.Client client = properties.clients().get(name);
+        if (client == null) {
+            throw new IllegalStateException("Cliente HTTP não configurado: http.clients." + name);
+        }
+
+        RestTemplateBuilder builder = restTemplateBuilder.requestFactory(() -> requestFactory(name, client));
+        if (client.baseUrl() != null) {
+            builder = builder.rootUri(client.baseUrl());
+        }
+        RestTemplate restTemplate = builder.build();
+        restTemplate.setObservationConvention(new DefaultClientRequestObservationConvention() {
+            @Override
+            protected KeyValue clientName(ClientRequestObservationContext context) {
+                return KeyValue.of("client.name", name);
+            }
+        });
+
+        logger.info("Cliente HTTP '{}' configurado: baseUrl={}, conexões={}, http2={}",
+            name, client.baseUrl(), client.maxConnections(), client.http2());
+        return restTemplate;
+    }
+
+    private ClientHttpRequestFactory requestFactory(String name, HttpClientProperties.Client client) {
+        if (client.http2()) {
+            // O HttpClient do JDK negocia HTTP/2 (ALPN) e multiplexa as chamadas numa única conexão,
+            // caindo para HTTP/1.1 quando o servidor não suporta.
+            HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(client.connectTimeout())
+                .build();
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+            factory.setReadTimeout(client.readTimeout());
+            return factory;
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(client.maxConnections())
+            .setMaxConnPerRoute(client.maxConnections())
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(client.connectTimeout().toMillis()))
+                .setSocketTimeout(Timeout.ofMilliseconds(client.readTimeout().toMillis()))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build())
+            .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(client.poolTimeout().toMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(client.readTimeout().toMillis()))
+                .build())
+            .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(client.keepAlive().toMillis()))
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(client.keepAlive().toMillis()))
+            .build();
+        pooledClients.add(httpClient);
+
+        Gauge.builder("http.client.pool.leased", connectionManager, manager -> manager.getTotalStats().getLeased())
+            .tag("client.name", name).register(meterRegistry);
+        Gauge.builder("http.client.pool.available", connectionManager, manager -> manager.getTotalStats().getAvailable())
+            .tag("client.name", name).register(meterRegistry);
+        Gauge.builder("http.client.pool.pending", connectionManager, manager -> manager.getTotalStats().getPending())
+            .tag("client.name", name).register(meterRegistry);
+
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (CloseableHttpClient client : pooledClients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                logger.warn("Falha ao fechar cliente HTTP", e);
+            }
+        }
+    }
+}
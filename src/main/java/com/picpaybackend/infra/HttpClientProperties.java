@@ -0,0 +1,21 @@
+package com.picpaybackend.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "http")
+public record HttpClientProperties(@DefaultValue Map<String, Client> clients) {
+
+    public record Client(
+        String baseUrl,
+        @DefaultValue("1s") Duration connectTimeout,
+        @DefaultValue("2s") Duration readTimeout,
+        @DefaultValue("500ms") Duration poolTimeout,
+        @DefaultValue("50") int maxConnections,
+        @DefaultValue("30s") Duration keepAlive,
+        @DefaultValue("false") boolean http2) {
+    }
+}
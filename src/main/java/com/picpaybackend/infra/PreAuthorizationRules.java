@@ -0,0 +1,26 @@
+package com.picpaybackend.infra;
+
+import com.picpaybackend.domain.money.Money;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+// Conteúdo do arquivo de regras (authorization.rules.file). Campo ausente desliga a regra. Exemplo:
+// {"denyAbove": 10000.00, "approveUpTo": 100.00, "minTenure": "P30D",
+//  "velocity": {"window": "PT1M", "maxCount": 10, "maxAmount": 500.00},
+//  "allow": ["<id do usuário>"], "deny": ["<id do usuário>"]}
+public record PreAuthorizationRules(Money denyAbove, Money approveUpTo, Duration minTenure, Velocity velocity,
+                                    Set<UUID> allow, Set<UUID> deny) {
+
+    public static final PreAuthorizationRules NONE = new PreAuthorizationRules(null, null, null, null, null, null);
+
+    // Acima de maxCount transferências ou de maxAmount somados dentro da janela, o remetente vai para o autorizador remoto
+    public record Velocity(Duration window, int maxCount, Money maxAmount) {
+    }
+
+    public PreAuthorizationRules {
+        allow = allow == null ? Set.of() : Set.copyOf(allow);
+        deny = deny == null ? Set.of() : Set.copyOf(deny);
+    }
+}
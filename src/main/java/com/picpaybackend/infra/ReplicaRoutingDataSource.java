@@ -0,0 +1,147 @@
+package com.picpaybackend.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+// Transações @Transactional(readOnly = true) vão para uma réplica saudável (em rodízio); todo o
+// resto, inclusive leituras dentro de uma transação de escrita, fica no primário. Precisa estar
+// atrás de um LazyConnectionDataSourceProxy: só assim a conexão física é pedida depois que o
+// Spring marcou a transação como somente leitura.
+//
+// Réplica saudável = respondeu à última checagem com atraso até maxLag. Se nenhuma estiver
+// saudável, ou se a conexão com a escolhida falhar, a leitura vai para o primário.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARY = "primary";
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+    private ScheduledExecutorService lagChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag, String lagQuery) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return PRIMARY;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(key).getConnection();
+        } catch (SQLException e) {
+            markUnhealthy((String) key, e);
+            return primary.getConnection();
+        }
+    }
+
+    // Thread própria: uma réplica fora do ar pode segurar a checagem até o connection-timeout, e
+    // isso não deve atrasar os @Scheduled da aplicação.
+    public void startLagChecks(Duration interval) {
+        checkReplicas();
+        lagChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecks.scheduleWithFixedDelay(this::checkReplicas, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Mede o atraso de cada réplica e recalcula a lista de saudáveis
+    public void checkReplicas() {
+        replicas.forEach((name, replica) -> {
+            try (Connection connection = replica.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(lagQuery)) {
+                result.next();
+                lagMillis.put(name, Math.round(result.getDouble(1)));
+            } catch (SQLException e) {
+                logger.warn("Falha ao medir o atraso da réplica {}: {}", name, e.getMessage());
+                lagMillis.remove(name);
+            }
+        });
+        List<String> current = replicas.keySet().stream()
+            .filter(name -> lagMillis.containsKey(name) && lagMillis.get(name) <= maxLagMillis)
+            .toList();
+        if (!current.equals(healthy)) {
+            logger.info("Réplicas disponíveis para leitura: {} (atrasos em ms: {})", current, lagMillis);
+        }
+        healthy = current;
+    }
+
+    // -1 quando a última checagem falhou
+    public long getLagMillis(String replica) {
+        return lagMillis.getOrDefault(replica, -1L);
+    }
+
+    public boolean isHealthy(String replica) {
+        return healthy.contains(replica);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (lagChecks != null) {
+            lagChecks.shutdownNow();
+        }
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void markUnhealthy(String replica, SQLException cause) {
+        logger.warn("Réplica {} indisponível, leitura redirecionada ao primário: {}", replica, cause.getMessage());
+        lagMillis.remove(replica);
+        healthy = healthy.stream().filter(name -> !name.equals(replica)).toList();
+    }
+}
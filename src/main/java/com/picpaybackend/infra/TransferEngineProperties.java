@@ -0,0 +1,21 @@
+package com.picpaybackend.infra;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "transfer.engine")
+public record TransferEngineProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("engine") String directory,
+    @DefaultValue("65536") int ringSize,
+    @DefaultValue("1024") int maxBatch,
+    @DefaultValue("67108800") long segmentSize,
+    @DefaultValue("1000000") long snapshotEvery,
+    @DefaultValue("100000") int expectedAccounts,
+    @DefaultValue("20ms") Duration replicationInterval,
+    @DefaultValue("1000") int replicationBatch,
+    @DefaultValue("5s") Duration timeout,
+    @DefaultValue("10m") Duration pendingRetention) {
+}
@@ -0,0 +1,347 @@
+package com.picpaybackend.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Journal do engine de transferências: segmentos de tamanho fixo, pré-alocados e mapeados em
+// memória, com registros de 80 bytes numerados em sequência contínua. append só copia para o
+// mapeamento; flush faz um único force do trecho sujo, então um lote inteiro custa um fsync.
+// Na recuperação a leitura para no primeiro registro com CRC inválido ou fora de sequência (cauda
+// de uma escrita interrompida), e tudo dali em diante é zerado antes de voltar a escrever.
+//
+// Só a thread escritora do engine chama append/flush; read e prune podem vir de outras threads.
+public class TransferJournal implements AutoCloseable {
+
+    public static final byte OPEN = 1;
+    public static final byte TRANSFER = 2;
+    public static final int RECORD_SIZE = 80;
+
+    private static final Pattern FILE_NAME = Pattern.compile("journal-(\\d{20})\\.log");
+    private static final int CRC_OFFSET = 12;
+    private static final Logger logger = LoggerFactory.getLogger(TransferJournal.class);
+
+    // seq, tipo, CRC32C; ids da transação, remetente e destinatário; valor em centavos; timestamp
+    // (LocalDateTime em micros, sem fuso). Em OPEN o remetente é a conta e o valor é o saldo inicial.
+    public record Entry(long sequence, byte type, UUID transactionId, UUID senderId, UUID receiverId,
+                        long amount, LocalDateTime timestamp) {
+    }
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final List<Segment> rolled = new ArrayList<>();
+    private Segment current;
+    private long lastSequence;
+    private boolean recovered;
+
+    public TransferJournal(Path directory, long segmentSize) throws IOException {
+        if (segmentSize < RECORD_SIZE || segmentSize % RECORD_SIZE != 0) {
+            throw new IllegalArgumentException("Tamanho de segmento deve ser múltiplo de " + RECORD_SIZE + ": " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    long first = Long.parseLong(matcher.group(1));
+                    segments.put(first, new Segment(first, path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)));
+                }
+            }
+        }
+    }
+
+    // Entrega os registros com sequência maior que after e posiciona a escrita logo após o último
+    // válido. Devolve a última sequência do journal (ou after, se não houver nada depois dela).
+    public long recover(long after, Consumer<Entry> consumer) throws IOException {
+        if (recovered) {
+            throw new IllegalStateException("Journal já recuperado");
+        }
+        recovered = true;
+        if (segments.isEmpty()) {
+            lastSequence = after;
+            return after;
+        }
+        long first = segments.firstKey();
+        if (first > after + 1) {
+            throw new IllegalStateException("Journal começa na sequência " + first + ", mas o estado recuperado termina em " + after);
+        }
+
+        long expected = first;
+        List<Segment> ordered = new ArrayList<>(segments.values());
+        for (int s = 0; s < ordered.size(); s++) {
+            Segment segment = ordered.get(s);
+            if (segment.firstSequence != expected) {
+                throw new IllegalStateException("Segmento " + segment.path + " fora de sequência; esperado " + expected);
+            }
+            segment.map();
+            int count = 0;
+            int capacity = segment.capacity();
+            while (count < capacity) {
+                Entry entry = decode(segment.buffer, count * RECORD_SIZE);
+                if (entry == null || entry.sequence() != expected) {
+                    break;
+                }
+                if (entry.sequence() > after) {
+                    consumer.accept(entry);
+                }
+                expected++;
+                count++;
+            }
+            segment.position = count;
+            segment.flushed = count;
+
+            if (count < capacity || s == ordered.size() - 1) {
+                // Escrita interrompida: o que vem depois nunca foi confirmado a ninguém
+                truncate(segment, ordered.subList(s + 1, ordered.size()));
+                current = segment;
+                break;
+            }
+            segment.unmap();
+        }
+
+        lastSequence = expected - 1;
+        if (lastSequence < after) {
+            throw new IllegalStateException("Journal termina na sequência " + lastSequence + ", antes do estado recuperado (" + after + ")");
+        }
+        return lastSequence;
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public void append(Entry entry) throws IOException {
+        if (!recovered) {
+            throw new IllegalStateException("Journal não recuperado");
+        }
+        if (entry.sequence() != lastSequence + 1) {
+            throw new IllegalStateException("Sequência " + entry.sequence() + " fora de ordem; esperada " + (lastSequence + 1));
+        }
+        if (current == null || current.position == current.capacity()) {
+            roll(entry.sequence());
+        }
+        encode(current.buffer, current.position * RECORD_SIZE, entry);
+        current.position++;
+        lastSequence = entry.sequence();
+    }
+
+    // Força para o disco o que foi escrito desde o último flush; devolve false se não havia nada
+    public boolean flush() {
+        boolean forced = false;
+        for (Segment segment : rolled) {
+            forced |= force(segment);
+            segment.unmap();
+        }
+        rolled.clear();
+        if (current != null) {
+            forced |= force(current);
+        }
+        return forced;
+    }
+
+    // Lê por posição no arquivo, sem tocar no mapeamento da escrita. O chamador limita to à última
+    // sequência já confirmada em disco.
+    public int read(long from, long to, int limit, Consumer<Entry> consumer) throws IOException {
+        int read = 0;
+        long sequence = from;
+        while (sequence <= to && read < limit) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(sequence);
+            if (floor == null) {
+                throw new IllegalStateException("Sequência " + sequence + " já removida do journal");
+            }
+            Segment segment = floor.getValue();
+            long inSegment = segment.channel.size() / RECORD_SIZE - (sequence - segment.firstSequence);
+            int count = (int) Math.min(Math.min(limit - read, to - sequence + 1), inSegment);
+            ByteBuffer buffer = ByteBuffer.allocate(count * RECORD_SIZE);
+            long position = (sequence - segment.firstSequence) * RECORD_SIZE;
+            while (buffer.hasRemaining()) {
+                if (segment.channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IllegalStateException("Segmento " + segment.path.getFileName() + " menor que o esperado");
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                Entry entry = decode(buffer, i * RECORD_SIZE);
+                if (entry == null || entry.sequence() != sequence) {
+                    throw new IllegalStateException("Registro " + sequence + " inválido no journal");
+                }
+                consumer.accept(entry);
+                sequence++;
+                read++;
+            }
+        }
+        return read;
+    }
+
+    // Remove os segmentos inteiramente até upTo (inclusive); o segmento atual nunca sai
+    public synchronized void prune(long upTo) throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Segment> first = segments.firstEntry();
+            Long next = segments.higherKey(first.getKey());
+            if (next == null || next - 1 > upTo || first.getValue() == current) {
+                return;
+            }
+            segments.remove(first.getKey());
+            first.getValue().channel.close();
+            Files.deleteIfExists(first.getValue().path);
+            logger.info("Segmento {} removido do journal", first.getValue().path.getFileName());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    private static boolean force(Segment segment) {
+        if (segment.position == segment.flushed) {
+            return false;
+        }
+        int from = segment.flushed * RECORD_SIZE;
+        segment.buffer.force(from, segment.position * RECORD_SIZE - from);
+        segment.flushed = segment.position;
+        return true;
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("journal-%020d.log", firstSequence));
+        Segment segment = new Segment(firstSequence, path, FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segment.map();
+        // O arquivo novo só é encontrado depois de um crash se a entrada no diretório chegou ao disco
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+        segments.put(firstSequence, segment);
+        if (current != null) {
+            // Um lote pode atravessar segmentos: o anterior ainda precisa do force no flush
+            rolled.add(current);
+        }
+        current = segment;
+    }
+
+    private void truncate(Segment segment, List<Segment> following) throws IOException {
+        int from = segment.position * RECORD_SIZE;
+        int end = segment.capacity() * RECORD_SIZE;
+        boolean dirty = false;
+        for (int i = from; i < end; i += 8) {
+            if (segment.buffer.getLong(i) != 0) {
+                segment.buffer.putLong(i, 0);
+                dirty = true;
+            }
+        }
+        if (dirty) {
+            segment.buffer.force(from, end - from);
+            logger.warn("Cauda inválida descartada no segmento {} a partir do registro {}", segment.path.getFileName(), segment.position);
+        }
+        for (Segment later : following) {
+            segments.remove(later.firstSequence);
+            later.channel.close();
+            Files.deleteIfExists(later.path);
+            logger.warn("Segmento {} descartado: posterior a uma escrita interrompida", later.path.getFileName());
+        }
+    }
+
+    static void encode(ByteBuffer buffer, int offset, Entry entry) {
+        buffer.putLong(offset, entry.sequence());
+        buffer.putInt(offset + 8, entry.type());
+        buffer.putInt(offset + CRC_OFFSET, 0);
+        putUuid(buffer, offset + 16, entry.transactionId());
+        putUuid(buffer, offset + 32, entry.senderId());
+        putUuid(buffer, offset + 48, entry.receiverId());
+        buffer.putLong(offset + 64, entry.amount());
+        buffer.putLong(offset + 72, toMicros(entry.timestamp()));
+        buffer.putInt(offset + CRC_OFFSET, crc(buffer, offset));
+    }
+
+    static Entry decode(ByteBuffer buffer, int offset) {
+        long sequence = buffer.getLong(offset);
+        if (sequence <= 0 || buffer.getInt(offset + CRC_OFFSET) != crc(buffer, offset)) {
+            return null;
+        }
+        return new Entry(sequence, (byte) buffer.getInt(offset + 8), getUuid(buffer, offset + 16),
+            getUuid(buffer, offset + 32), getUuid(buffer, offset + 48), buffer.getLong(offset + 64),
+            fromMicros(buffer.getLong(offset + 72)));
+    }
+
+    private static int crc(ByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CRC_OFFSET));
+        crc.update(buffer.slice(offset + CRC_OFFSET + 4, RECORD_SIZE - CRC_OFFSET - 4));
+        return (int) crc.getValue();
+    }
+
+    private static void putUuid(ByteBuffer buffer, int offset, UUID id) {
+        buffer.putLong(offset, id == null ? 0 : id.getMostSignificantBits());
+        buffer.putLong(offset + 8, id == null ? 0 : id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer, int offset) {
+        long msb = buffer.getLong(offset);
+        long lsb = buffer.getLong(offset + 8);
+        return msb == 0 && lsb == 0 ? null : new UUID(msb, lsb);
+    }
+
+    // Relógio local sem fuso, igual à coluna timestamp; UTC aqui é só a régua da conversão
+    private static long toMicros(LocalDateTime timestamp) {
+        return ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), timestamp);
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+
+    private final class Segment {
+        final long firstSequence;
+        final Path path;
+        final FileChannel channel;
+        MappedByteBuffer buffer;
+        // Em registros
+        int position;
+        int flushed;
+
+        Segment(long firstSequence, Path path, FileChannel channel) {
+            this.firstSequence = firstSequence;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        // Segmentos existentes mantêm o tamanho com que foram criados
+        void map() throws IOException {
+            long size = channel.size() > 0 ? channel.size() : segmentSize;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size - size % RECORD_SIZE);
+        }
+
+        void unmap() {
+            buffer = null;
+        }
+
+        int capacity() {
+            return buffer.capacity() / RECORD_SIZE;
+        }
+    }
+}
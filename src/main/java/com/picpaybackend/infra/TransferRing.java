@@ -0,0 +1,75 @@
+package com.picpaybackend.infra;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+// Fila circular limitada, vários produtores e um único consumidor, sem locks (esquema de Vyukov):
+// cada posição guarda a sequência que libera o próximo acesso. O produtor reserva a posição com
+// um CAS no tail, grava o item e publica a sequência; o consumidor só lê posições publicadas, na
+// ordem. Cheia, offer devolve false na hora em vez de bloquear quem está produzindo.
+public class TransferRing<T> {
+
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int mask;
+    // Só a thread consumidora lê e escreve
+    private long head;
+
+    public TransferRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacidade deve ser potência de 2: " + capacity);
+        }
+        items = new Object[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    public boolean offer(T item) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+        }
+        items[index] = item;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    // Entrega até limit itens publicados, na ordem de reserva; devolve quantos foram entregues
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<T> consumer, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            T item = (T) items[index];
+            items[index] = null;
+            sequences.lazySet(index, head + items.length);
+            head++;
+            drained++;
+            consumer.accept(item);
+        }
+        return drained;
+    }
+
+    // Aproximado: produtores podem estar no meio de uma publicação
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
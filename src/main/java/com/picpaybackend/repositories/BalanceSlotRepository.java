@@ -0,0 +1,20 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.ledger.BalanceSlot;
+import com.picpaybackend.domain.ledger.BalanceSlotId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface BalanceSlotRepository extends JpaRepository<BalanceSlot, BalanceSlotId> {
+
+    @Modifying
+    @Query("UPDATE balance_slots b SET b.balance = b.balance + :delta WHERE b.accountId = :accountId AND b.slot = :slot")
+    int addToSlot(@Param("accountId") UUID accountId, @Param("slot") int slot, @Param("delta") long delta);
+
+    @Query("SELECT COALESCE(MAX(b.slot) + 1, 0) FROM balance_slots b WHERE b.accountId = :accountId")
+    int countSlots(@Param("accountId") UUID accountId);
+}
@@ -0,0 +1,9 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.ledger.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, UUID> {
+}
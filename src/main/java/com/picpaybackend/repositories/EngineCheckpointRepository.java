@@ -0,0 +1,16 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.engine.EngineCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface EngineCheckpointRepository extends JpaRepository<EngineCheckpoint, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM engine_checkpoint c WHERE c.id = " + EngineCheckpoint.SINGLETON_ID)
+    Optional<EngineCheckpoint> findForUpdate();
+}
@@ -0,0 +1,9 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.ledger.HotAccount;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface HotAccountRepository extends JpaRepository<HotAccount, UUID> {
+}
@@ -0,0 +1,25 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.idempotency.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM idempotency_keys r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    // Só remove a reserva se ela já venceu: uma reserva recente de outra instância continua no
+    // banco e a inserção seguinte falha pela chave primária
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM idempotency_keys r WHERE r.key = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,16 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.ledger.LedgerCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM ledger_checkpoint c WHERE c.id = " + LedgerCheckpoint.SINGLETON_ID)
+    Optional<LedgerCheckpoint> findForUpdate();
+}
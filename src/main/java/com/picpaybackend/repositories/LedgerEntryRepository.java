@@ -0,0 +1,34 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.ledger.LedgerEntry;
+import com.picpaybackend.dtos.AccountBalanceDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    String SIGNED_AMOUNT = "CASE WHEN e.direction = com.picpaybackend.domain.ledger.EntryDirection.DEBIT THEN -e.amount ELSE e.amount END";
+    String CHECKPOINT = "COALESCE((SELECT c.asOf FROM ledger_checkpoint c), :origin)";
+
+    // Snapshot + delta + fatias em uma única instrução: o par snapshot/checkpoint lido é sempre
+    // consistente, mesmo com a consolidação rodando em paralelo. O delta usa o índice
+    // (account_id, slotted, created_at) e só percorre lançamentos que não foram para uma fatia.
+    @Query("SELECT new com.picpaybackend.dtos.AccountBalanceDTO(u.id, COALESCE(s.balance, 0) + COALESCE("
+        + "(SELECT SUM(" + SIGNED_AMOUNT + ") FROM ledger_entries e WHERE e.accountId = u.id AND e.slotted = false AND e.createdAt >= " + CHECKPOINT + "), 0) + COALESCE("
+        + "(SELECT SUM(b.balance) FROM balance_slots b WHERE b.accountId = u.id), 0)) "
+        + "FROM users u LEFT JOIN balance_snapshots s ON s.accountId = u.id WHERE u.id IN :ids")
+    List<AccountBalanceDTO> findCurrentBalances(@Param("ids") Collection<UUID> ids, @Param("origin") LocalDateTime origin);
+
+    @Query("SELECT new com.picpaybackend.dtos.AccountBalanceDTO(e.accountId, SUM(" + SIGNED_AMOUNT + ")) "
+        + "FROM ledger_entries e WHERE e.slotted = false AND e.createdAt >= :from AND e.createdAt < :to GROUP BY e.accountId")
+    List<AccountBalanceDTO> sumByAccountBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(" + SIGNED_AMOUNT + "), 0) FROM ledger_entries e WHERE e.accountId = :accountId")
+    long replayBalance(@Param("accountId") UUID accountId);
+}
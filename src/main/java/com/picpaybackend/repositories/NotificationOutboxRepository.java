@@ -0,0 +1,40 @@
+package com.picpaybackend.repositories;
+
+import com.picpaybackend.domain.notification.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, UUID> {
+
+    // FOR UPDATE SKIP LOCKED: vários dispatchers podem drenar a fila em paralelo sem disputar as
+    // mesmas linhas. Cada destinatário entra com no máximo perRecipient linhas por lote, para um
+    // destinatário com fila grande não ocupar o lote inteiro. O filtro é repetido fora da subconsulta
+    // porque só ali a linha já está travada e é reavaliada se outro dispatcher a alterou.
+    @Query(value = """
+        SELECT n.* FROM notification_outbox n
+        WHERE n.id IN (
+            SELECT ranked.id FROM (
+                SELECT o.id, o.next_attempt_at,
+                       row_number() OVER (PARTITION BY o.email ORDER BY o.next_attempt_at) AS position
+                FROM notification_outbox o
+                WHERE o.status IN (:statuses) AND o.next_attempt_at <= :now
+            ) ranked
+            WHERE ranked.position <= :perRecipient
+            ORDER BY ranked.next_attempt_at
+            LIMIT :limit
+        )
+        AND n.status IN (:statuses) AND n.next_attempt_at <= :now
+        ORDER BY n.next_attempt_at
+        FOR UPDATE SKIP LOCKED
+        """, nativeQuery = true)
+    List<NotificationOutbox> findDueForUpdate(@Param("statuses") Collection<String> statuses,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("perRecipient") int perRecipient,
+                                              @Param("limit") int limit);
+}
@@ -1,12 +1,88 @@
 package com.picpaybackend.repositories;
 
 import com.picpaybackend.domain.transaction.Transaction;
-import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
+
+    // Projeções de leitura: t.sender.id / t.receiver.id saem direto das colunas de chave
+    // estrangeira, sem join; a versão com as partes faz um único join com users e traz só
+    // nome e tipo (nunca senha ou saldo).
+    String SUMMARY = "SELECT new com.picpaybackend.dtos.TransactionSummaryDTO(" +
+        "t.id, t.amount, t.timestamp, t.isReversed, t.sender.id, t.receiver.id) FROM transactions t ";
+    String SUMMARY_WITH_PARTIES = "SELECT new com.picpaybackend.dtos.TransactionSummaryDTO(" +
+        "t.id, t.amount, t.timestamp, t.isReversed, " +
+        "s.id, s.firstName, s.lastName, s.userType, r.id, r.firstName, r.lastName, r.userType) " +
+        "FROM transactions t JOIN t.sender s JOIN t.receiver r ";
+    String NEWEST_FIRST = "ORDER BY t.timestamp DESC, t.id DESC";
+    // O t.timestamp <= :timestamp redundante é o que deixa o Postgres descartar as partições mais
+    // novas que o cursor; a comparação de tupla sozinha não serve para o pruning.
+    String BEFORE_CURSOR = "WHERE t.timestamp <= :timestamp AND (t.timestamp, t.id) < (:timestamp, :id) ";
+    String USER_PAGE = "AND t.timestamp >= :from AND t.timestamp <= :timestamp AND (t.timestamp, t.id) < (:timestamp, :id) ";
+
     Optional<Transaction> findTransactionsById(UUID id);
+
+    // Reversão: a linha da transação fica travada até o commit, então duas reversões concorrentes
+    // da mesma transação são serializadas e a segunda já enxerga reversed = true. Sem o
+    // timestamp não há pruning: no Postgres particionado, percorre o índice de cada partição.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM transactions t WHERE t.id = :id")
+    Optional<Transaction> findByIdForUpdate(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM transactions t WHERE t.id IN :ids ORDER BY t.id")
+    List<Transaction> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    @Query(SUMMARY + "WHERE t.id = :id")
+    Optional<TransactionSummaryDTO> findSummaryById(@Param("id") UUID id);
+
+    @Query(SUMMARY_WITH_PARTIES + "WHERE t.id = :id")
+    Optional<TransactionSummaryDTO> findSummaryWithPartiesById(@Param("id") UUID id);
+
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryFirstPage(Limit limit);
+
+    @Query(SUMMARY + BEFORE_CURSOR + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryPageBefore(@Param("timestamp") LocalDateTime timestamp, @Param("id") UUID id, Limit limit);
+
+    @Query(SUMMARY_WITH_PARTIES + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryWithPartiesFirstPage(Limit limit);
+
+    @Query(SUMMARY_WITH_PARTIES + BEFORE_CURSOR + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSummaryWithPartiesPageBefore(@Param("timestamp") LocalDateTime timestamp, @Param("id") UUID id, Limit limit);
+
+    // Histórico de um usuário: o limite superior é sempre uma tupla (o cursor, ou o fim do período
+    // com o menor id possível), então a primeira página e as seguintes usam a mesma consulta.
+    @Query(SUMMARY + "WHERE t.sender.id = :userId " + USER_PAGE + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findSentPage(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+                                             @Param("timestamp") LocalDateTime timestamp, @Param("id") UUID id, Limit limit);
+
+    @Query(SUMMARY + "WHERE t.receiver.id = :userId " + USER_PAGE + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findReceivedPage(@Param("userId") UUID userId, @Param("from") LocalDateTime from,
+                                                 @Param("timestamp") LocalDateTime timestamp, @Param("id") UUID id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + NEWEST_FIRST)
+    Stream<TransactionSummaryDTO> streamSummaries();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY_WITH_PARTIES + NEWEST_FIRST)
+    Stream<TransactionSummaryDTO> streamSummariesWithParties();
 }
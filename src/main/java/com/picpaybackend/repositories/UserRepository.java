@@ -1,15 +1,44 @@
 package com.picpaybackend.repositories;
 
 import com.picpaybackend.domain.user.User;
+import com.picpaybackend.domain.user.UserProfile;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findUserByDocument(String document);
     Optional<User> findUserById(UUID id);
-}
 
+    @Query("SELECT new com.picpaybackend.domain.user.UserProfile(u.id, u.userType, u.email, u.document) FROM users u WHERE u.id = :id")
+    Optional<UserProfile> findProfileById(@Param("id") UUID id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM users u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
 
+    @Query("SELECT u FROM users u ORDER BY u.id")
+    List<User> findFirstPage(Limit limit);
+
+    @Query("SELECT u FROM users u WHERE u.id > :id ORDER BY u.id")
+    List<User> findPageAfter(@Param("id") UUID id, Limit limit);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT u FROM users u ORDER BY u.id")
+    Stream<User> streamAll();
+}
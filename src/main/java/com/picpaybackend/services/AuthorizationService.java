@@ -0,0 +1,333 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.authorization.AuthorizationDecision;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.infra.AuthorizationProperties;
+import com.picpaybackend.infra.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+@Service
+public class AuthorizationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationService.class);
+
+    private final RestTemplate restTemplate;
+    private final AuthorizationProperties properties;
+    private final Executor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Counter hedgeCounter;
+    private final PreAuthorizationService preAuthorizationService;
+
+    @Autowired
+    public AuthorizationService(@Qualifier("authorizerRestTemplate") RestTemplate restTemplate, AuthorizationProperties properties,
+                                MeterRegistry meterRegistry, @Qualifier("authorizationExecutor") Executor executor,
+                                PreAuthorizationService preAuthorizationService) {
+        this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+        this.preAuthorizationService = preAuthorizationService;
+        this.circuitBreaker = new CircuitBreaker(properties.failureThreshold(), properties.openDuration());
+        this.hedgeCounter = meterRegistry.counter("authorization.hedges");
+        Gauge.builder("authorization.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+            .description("0 = fechado, 1 = aberto, 2 = meio aberto")
+            .register(meterRegistry);
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public void authorize(User sender, Money value) throws HttpClientErrorException, HttpServerErrorException {
+        authorize(sender.getId(), value);
+    }
+
+    public void authorize(UUID senderId, Money value) throws HttpClientErrorException, HttpServerErrorException {
+        AuthorizationDecision local = preAuthorize(senderId, value);
+        if (local == AuthorizationDecision.APPROVE) {
+            return;
+        }
+        if (local == AuthorizationDecision.DENY) {
+            throw forbidden();
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "approved";
+        CompletableFuture<Void> authorization = remoteAuthorization(senderId);
+        try {
+            authorization.get(properties.deadline().toMillis(), TimeUnit.MILLISECONDS);
+            logger.info("Transação autorizada com sucesso para o usuário {}", senderId);
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            authorization.completeExceptionally(e);
+            logger.error("Prazo de {}ms para autorizar a transação do usuário {} esgotado.", properties.deadline().toMillis(), senderId);
+            throw serverError(HttpStatus.GATEWAY_TIMEOUT, "Tempo esgotado ao autorizar transação");
+        } catch (ExecutionException e) {
+            RuntimeException cause = (RuntimeException) e.getCause();
+            outcome = outcome(cause);
+            throw cause;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = "error";
+            authorization.completeExceptionally(e);
+            throw serverError(HttpStatus.SERVICE_UNAVAILABLE, "Erro inesperado ao autorizar transação");
+        } finally {
+            sample.stop(meterRegistry.timer("authorization.requests", "outcome", outcome));
+        }
+    }
+
+    // Chamado por quem aplica a transferência, depois da checagem de saldo: autorização que não
+    // vira transferência não conta na janela de velocidade do remetente.
+    public void recordReleased(UUID senderId, Money value) {
+        preAuthorizationService.recordReleased(senderId, value);
+    }
+
+    // Mesmas regras e prazo do authorize, sem bloquear quem chama: permite autorizar vários
+    // remetentes em paralelo (ex.: lote de transações) antes de abrir a transação de banco.
+    public CompletableFuture<Void> authorizeAsync(UUID senderId, Money value) {
+        AuthorizationDecision local = preAuthorize(senderId, value);
+        if (local == AuthorizationDecision.APPROVE) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (local == AuthorizationDecision.DENY) {
+            return CompletableFuture.failedFuture(forbidden());
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<Void> authorization = remoteAuthorization(senderId);
+        // Completar o futuro no prazo também cancela as próximas tentativas
+        CompletableFuture.delayedExecutor(properties.deadline().toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (authorization.completeExceptionally(serverError(HttpStatus.GATEWAY_TIMEOUT, "Tempo esgotado ao autorizar transação"))) {
+                logger.error("Prazo de {}ms para autorizar a transação do usuário {} esgotado.", properties.deadline().toMillis(), senderId);
+            }
+        });
+        return authorization.whenComplete((ignored, error) -> {
+            Throwable cause = unwrap(error);
+            String outcome = cause == null ? "approved"
+                : cause instanceof HttpServerErrorException timeout && timeout.getStatusCode() == HttpStatus.GATEWAY_TIMEOUT ? "timeout"
+                : outcome(cause);
+            sample.stop(meterRegistry.timer("authorization.requests", "outcome", outcome));
+        });
+    }
+
+    // Regras locais resolvem os casos óbvios sem rede; só o que elas deixam em aberto (DEFER) vai ao autorizador
+    private AuthorizationDecision preAuthorize(UUID senderId, Money value) {
+        PreAuthorizationService.Decision decision = preAuthorizationService.evaluate(senderId, value);
+        if (decision.result() == AuthorizationDecision.APPROVE) {
+            logger.info("Transação autorizada localmente (regra {}) para o usuário {}", decision.rule(), senderId);
+        } else if (decision.result() == AuthorizationDecision.DENY) {
+            logger.warn("Transação recusada localmente (regra {}) para o usuário {}", decision.rule(), senderId);
+        }
+        return decision.result();
+    }
+
+    private static String outcome(Throwable cause) {
+        return cause instanceof HttpClientErrorException ? "denied"
+            : cause instanceof SaturatedException ? "saturated" : "error";
+    }
+
+    // As novas tentativas são agendadas com CompletableFuture.delayedExecutor: durante o backoff
+    // nenhuma thread fica dormindo, e completar o futuro (ex.: prazo esgotado) cancela as próximas.
+    private CompletableFuture<Void> remoteAuthorization(UUID senderId) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        attempt(senderId, 1, result);
+        return result;
+    }
+
+    private void attempt(UUID senderId, int attempt, CompletableFuture<Void> result) {
+        if (result.isDone()) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            countAttempt("rejected");
+            logger.warn("Circuito do autorizador aberto, transação do usuário {} recusada sem chamada remota.", senderId);
+            result.completeExceptionally(serverError(HttpStatus.SERVICE_UNAVAILABLE, "Serviço autorizador indisponível"));
+            return;
+        }
+
+        logger.info("Tentativa {}/{} de autorização da transação para o usuário {}.", attempt, properties.maxAttempts(), senderId);
+        callWithHedge(senderId).whenComplete((ignored, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof RejectedExecutionException) {
+                // Saturação local: o autorizador nem foi chamado. Não abre o circuito e não é
+                // repetida, o que só aumentaria a carga justamente quando já está no limite.
+                circuitBreaker.releasePermission();
+                countAttempt("saturated");
+                logger.warn("Limite de chamadas simultâneas ao autorizador atingido, transação do usuário {} recusada.", senderId);
+                result.completeExceptionally(new SaturatedException());
+                return;
+            }
+            if (cause == null) {
+                circuitBreaker.onSuccess();
+                countAttempt("approved");
+                result.complete(null);
+                return;
+            }
+            if (cause instanceof HttpClientErrorException) {
+                // Recusa é resposta válida do autorizador: não conta como falha nem é repetida
+                circuitBreaker.onSuccess();
+                countAttempt("denied");
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            circuitBreaker.onFailure();
+            countAttempt(cause instanceof TimeoutException ? "timeout" : "error");
+            if (attempt >= properties.maxAttempts()) {
+                logger.error("Todas as tentativas de autorização falharam para o usuário {}.", senderId, cause);
+                result.completeExceptionally(asServerError(cause));
+                return;
+            }
+
+            long delay = backoffMs(attempt);
+            meterRegistry.counter("authorization.retries", "attempt", String.valueOf(attempt + 1)).increment();
+            logger.warn("Erro ao autorizar transação, tentativa {}/{}. Nova tentativa em {}ms.", attempt, properties.maxAttempts(), delay);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                .execute(() -> attempt(senderId, attempt + 1, result));
+        });
+    }
+
+    private CompletableFuture<Void> callWithHedge(UUID senderId) {
+        CompletableFuture<Void> primary = call();
+        if (!properties.hedgeEnabled()) {
+            return primary;
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicInteger pendingLegs = new AtomicInteger(1);
+        // Uma perna recusada pelo limite local não esconde a falha real da outra
+        AtomicReference<Throwable> remoteFailure = new AtomicReference<>();
+        BiConsumer<Void, Throwable> onLeg = (ignored, error) -> {
+            if (error == null) {
+                result.complete(null);
+                return;
+            }
+            if (!(unwrap(error) instanceof RejectedExecutionException)) {
+                remoteFailure.compareAndSet(null, error);
+            }
+            if (pendingLegs.decrementAndGet() == 0 || unwrap(error) instanceof HttpClientErrorException) {
+                Throwable failure = remoteFailure.get();
+                result.completeExceptionally(failure == null ? error : failure);
+            }
+        };
+        primary.whenComplete(onLeg);
+
+        CompletableFuture.delayedExecutor(properties.hedgeDelay().toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            int pending;
+            do {
+                pending = pendingLegs.get();
+                if (pending == 0 || result.isDone()) {
+                    return;
+                }
+            } while (!pendingLegs.compareAndSet(pending, pending + 1));
+            hedgeCounter.increment();
+            logger.debug("Autorizador não respondeu em {}ms, disparando chamada paralela para o usuário {}.", properties.hedgeDelay().toMillis(), senderId);
+            call().whenComplete(onLeg);
+        });
+        return result;
+    }
+
+    private CompletableFuture<Void> call() {
+        try {
+            return CompletableFuture.runAsync(this::callAuthorizer, executor)
+                .orTimeout(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void callAuthorizer() {
+        ResponseEntity<Map> authorizationResponse = restTemplate.getForEntity(properties.path(), Map.class);
+
+        if (authorizationResponse.getStatusCode().is5xxServerError()) {
+            throw serverError(HttpStatus.INTERNAL_SERVER_ERROR, "Erro inesperado ao autorizar transação");
+        }
+
+        Map<String, Object> body = authorizationResponse.getBody();
+
+        if (body == null || !body.containsKey("data") || !"success".equals(body.get("status"))) {
+            logger.warn("Transação não autorizada pelo serviço externo.");
+            throw forbidden();
+        }
+
+        Map<String, Object> data = (Map<String, Object>) body.get("data");
+
+        if (!data.containsKey("authorization") || !Boolean.TRUE.equals(data.get("authorization"))) {
+            logger.warn("Transação rejeitada pelo serviço externo.");
+            throw forbidden();
+        }
+    }
+
+    private long backoffMs(int attempt) {
+        // Exponencial com "full jitter": espalha as novas tentativas de clientes que falharam juntos
+        long ceiling = Math.min(properties.maxBackoff().toMillis(),
+            properties.initialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void countAttempt(String result) {
+        meterRegistry.counter("authorization.attempts", "result", result).increment();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException || error instanceof ExecutionException) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private static RuntimeException asServerError(Throwable cause) {
+        if (cause instanceof HttpServerErrorException serverError) {
+            return serverError;
+        }
+        if (cause instanceof TimeoutException) {
+            return serverError(HttpStatus.GATEWAY_TIMEOUT, "Tempo esgotado ao autorizar transação");
+        }
+        return serverError(HttpStatus.SERVICE_UNAVAILABLE, "Erro inesperado ao autorizar transação");
+    }
+
+    private static HttpClientErrorException forbidden() {
+        return new HttpClientErrorException(HttpStatus.FORBIDDEN,
+            "Transação não autorizada",
+            "{\"message\": \"Transação não autorizada\"}".getBytes(StandardCharsets.UTF_8),
+            StandardCharsets.UTF_8);
+    }
+
+    private static HttpServerErrorException serverError(HttpStatus status, String message) {
+        return new HttpServerErrorException(status, message,
+            ("{\"error\": \"" + message + "\"}").getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    // 503 próprio da saturação local, separado das falhas do autorizador nas métricas
+    private static final class SaturatedException extends HttpServerErrorException {
+        private static final String MESSAGE = "Limite de chamadas simultâneas ao autorizador atingido";
+
+        SaturatedException() {
+            super(HttpStatus.SERVICE_UNAVAILABLE, MESSAGE,
+                ("{\"error\": \"" + MESSAGE + "\"}").getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        }
+    }
+}
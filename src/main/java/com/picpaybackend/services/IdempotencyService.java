@@ -0,0 +1,207 @@
+package com.picpaybackend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picpaybackend.domain.idempotency.IdempotencyRecord;
+import com.picpaybackend.repositories.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String APPLIED_WITHOUT_RESPONSE =
+        "{\"message\":\"Operação efetivada, mas a resposta não pôde ser gerada\",\"error\":\"500\"}";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final Cache<String, Completed> cache;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              @Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${idempotency.cache-size:10000}") long cacheSize) {
+        this.repository = repository;
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public record StoredResponse(int statusCode, String body, boolean replayed) {
+
+        StoredResponse asReplay() {
+            return new StoredResponse(statusCode, body, true);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ResponseWriter<T> {
+        StoredResponse write(T result) throws Exception;
+    }
+
+    public StoredResponse execute(String key, String requestHash, Callable<StoredResponse> action) throws Exception {
+        return execute(key, requestHash, action, response -> response);
+    }
+
+    // Executa a ação uma única vez por chave. Repetições recebem a resposta original; duplicatas
+    // concorrentes na mesma instância aguardam a execução em andamento. Entre instâncias, a linha
+    // reservada no banco garante que só uma delas execute (as demais recebem 409 até a conclusão).
+    //
+    // A ação é o efeito (ex.: a transferência, já confirmada quando retorna) e o writer monta a
+    // resposta. Só uma exceção da ação libera a chave: depois dela, nada mais reexecuta o efeito.
+    public <T> StoredResponse execute(String key, String requestHash, Callable<T> action, ResponseWriter<T> writer) throws Exception {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida");
+        }
+
+        Completed cached = cache.getIfPresent(key);
+        if (cached != null) {
+            checkSamePayload(cached.requestHash(), requestHash);
+            logger.info("Reaproveitando resposta da Idempotency-Key {}", key);
+            return cached.response().asReplay();
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            checkSamePayload(running.requestHash(), requestHash);
+            return await(running.future()).asReplay();
+        }
+
+        try {
+            StoredResponse response = executeOnce(key, requestHash, action, writer);
+            mine.future().complete(response);
+            return response;
+        } catch (Exception e) {
+            mine.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private <T> StoredResponse executeOnce(String key, String requestHash, Callable<T> action, ResponseWriter<T> writer) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = repository.findById(key).filter(record -> record.getExpiresAt().isAfter(now));
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            checkSamePayload(record.getRequestHash(), requestHash);
+            if (!record.isCompleted()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Requisição com esta Idempotency-Key ainda em processamento");
+            }
+            StoredResponse stored = new StoredResponse(record.getStatusCode(), record.getResponseBody(), false);
+            cache.put(key, new Completed(requestHash, stored));
+            return stored.asReplay();
+        }
+
+        IdempotencyRecord record = reserve(key, requestHash, now);
+        T result;
+        try {
+            result = action.call();
+        } catch (Exception e) {
+            // A ação falhou e a transação dela foi desfeita: libera a chave para o cliente tentar de novo
+            repository.delete(record);
+            throw e;
+        }
+
+        StoredResponse response;
+        try {
+            response = writer.write(result);
+        } catch (Exception e) {
+            logger.error("Falha ao montar a resposta da Idempotency-Key {}; a operação já foi efetivada", key, e);
+            response = new StoredResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), APPLIED_WITHOUT_RESPONSE, false);
+        }
+        cache.put(key, new Completed(requestHash, response));
+
+        record.complete(response.statusCode(), response.body());
+        try {
+            repository.save(record);
+        } catch (RuntimeException e) {
+            // A reserva continua no banco até expirar: outras instâncias respondem 409, esta repete a resposta do cache
+            logger.error("Falha ao gravar a resposta da Idempotency-Key {}; a operação já foi efetivada", key, e);
+        }
+        return response;
+    }
+
+    private IdempotencyRecord reserve(String key, String requestHash, LocalDateTime now) {
+        // Uma reserva vencida de execução anterior ainda pode estar no banco
+        repository.deleteIfExpired(key, now);
+        try {
+            return repository.saveAndFlush(new IdempotencyRecord(key, requestHash, now, now.plus(ttl)));
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Idempotency-Key {} reservada por outra requisição concorrente", key);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Requisição com esta Idempotency-Key ainda em processamento");
+        }
+    }
+
+    private static void checkSamePayload(String expectedHash, String requestHash) {
+        if (!expectedHash.equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key já utilizada com outro payload");
+        }
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public static String hash(byte[] payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String hash(String payload) {
+        return hash(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        int removed = repository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.info("{} chaves de idempotência expiradas removidas", removed);
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<StoredResponse> future) {
+    }
+
+    private record Completed(String requestHash, StoredResponse response) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.engine.EngineCheckpoint;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.infra.TransferEngineProperties;
+import com.picpaybackend.infra.TransferJournal;
+import com.picpaybackend.repositories.EngineCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
+
+// Copia o journal do engine para o banco, em ordem e em lotes: transactions (insert em batch via
+// JDBC, com o id gerado pelo engine), lançamentos do ledger, notificações no outbox e o checkpoint,
+// tudo na mesma transação. Histórico, extratos e saldo do banco ficam atrás do engine pelo
+// atraso da replicação (métrica transfer.engine.replication.lag).
+@Service
+@ConditionalOnProperty(prefix = "transfer.engine", name = "enabled", havingValue = "true")
+public class JournalReplicator {
+
+    private static final String INSERT = "INSERT INTO transactions (id, amount, \"timestamp\", reversed, sender_id, receiver_id) "
+        + "VALUES (?, ?, ?, false, ?, ?)";
+    private static final Logger logger = LoggerFactory.getLogger(JournalReplicator.class);
+
+    private final TransferEngine engine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EngineCheckpointRepository checkpointRepository;
+    private final LedgerService ledgerService;
+    private final NotificationService notificationService;
+    private final UserService userService;
+    private final TransferEngineProperties properties;
+    private Thread thread;
+    private volatile boolean running;
+    // Só a thread do replicador altera depois da subida
+    private volatile long replicated;
+
+    @Autowired
+    public JournalReplicator(TransferEngine engine, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             EngineCheckpointRepository checkpointRepository, LedgerService ledgerService,
+                             NotificationService notificationService, UserService userService,
+                             TransferEngineProperties properties) {
+        this.engine = engine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.ledgerService = ledgerService;
+        this.notificationService = notificationService;
+        this.userService = userService;
+        this.properties = properties;
+    }
+
+    // Banco e journal precisam contar a mesma história: um banco recriado (create-drop) com um
+    // journal antigo no disco, ou o contrário, duplicaria ou perderia transferências.
+    @PostConstruct
+    public void start() {
+        long durable = engine.durableSequence();
+        Long checkpoint = transactionTemplate.execute(status -> checkpointRepository.findForUpdate()
+            .map(EngineCheckpoint::getJournalSequence)
+            .orElseGet(() -> {
+                if (durable > 0) {
+                    throw new IllegalStateException("Journal do engine em " + engine.getDirectory().toAbsolutePath()
+                        + " tem " + durable + " registros, mas o banco não tem checkpoint de replicação");
+                }
+                return checkpointRepository.saveAndFlush(new EngineCheckpoint(0, LocalDateTime.now())).getJournalSequence();
+            }));
+        if (checkpoint > durable) {
+            throw new IllegalStateException("Banco replicado até a sequência " + checkpoint + ", mas o journal do engine termina em " + durable);
+        }
+        replicated = checkpoint;
+        engine.markReplicated(checkpoint);
+        logger.info("Replicação do engine retomada a partir da sequência {} ({} pendentes)", checkpoint, durable - checkpoint);
+
+        running = true;
+        thread = new Thread(this::run, "transfer-engine-replicator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(properties.timeout().toMillis());
+        }
+    }
+
+    private void run() {
+        long interval = properties.replicationInterval().toNanos();
+        while (running) {
+            int copied;
+            try {
+                copied = replicateBatch();
+            } catch (RuntimeException e) {
+                logger.error("Falha ao replicar o journal do engine a partir da sequência {}; nova tentativa em seguida", replicated + 1, e);
+                copied = 0;
+            }
+            // Lote cheio: ainda há atraso, segue sem esperar
+            if (copied < properties.replicationBatch()) {
+                LockSupport.parkNanos(interval);
+            }
+        }
+    }
+
+    public int replicateBatch() {
+        long from = replicated + 1;
+        long to = engine.durableSequence();
+        if (from > to) {
+            return 0;
+        }
+        List<TransferJournal.Entry> entries = new ArrayList<>();
+        try {
+            engine.readJournal(from, to, properties.replicationBatch(), entries::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long last = entries.get(entries.size() - 1).sequence();
+        // OPEN só traz para o engine um saldo que já estava no banco
+        List<TransferJournal.Entry> transfers = entries.stream()
+            .filter(entry -> entry.type() == TransferJournal.TRANSFER)
+            .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            EngineCheckpoint checkpoint = checkpointRepository.findForUpdate()
+                .orElseThrow(() -> new IllegalStateException("Checkpoint de replicação do engine não encontrado"));
+            if (checkpoint.getJournalSequence() != from - 1) {
+                throw new IllegalStateException("Checkpoint de replicação em " + checkpoint.getJournalSequence() + ", esperado " + (from - 1));
+            }
+            if (!transfers.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT, transfers, transfers.size(), (statement, entry) -> {
+                    statement.setObject(1, entry.transactionId());
+                    statement.setLong(2, entry.amount());
+                    statement.setTimestamp(3, Timestamp.valueOf(entry.timestamp()));
+                    statement.setObject(4, entry.senderId());
+                    statement.setObject(5, entry.receiverId());
+                });
+                ledgerService.recordTransfers(transfers.stream().map(JournalReplicator::toTransaction).toList());
+                for (TransferJournal.Entry entry : transfers) {
+                    notificationService.enqueueNotification(userService.getProfile(entry.senderId()).email(), "Transação concluída com sucesso");
+                    notificationService.enqueueNotification(userService.getProfile(entry.receiverId()).email(), "Transação concluída com sucesso");
+                }
+            }
+            checkpoint.setJournalSequence(last);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+        });
+
+        replicated = last;
+        engine.markReplicated(last);
+        return entries.size();
+    }
+
+    private static Transaction toTransaction(TransferJournal.Entry entry) {
+        return new Transaction(entry.transactionId(), Money.ofMinor(entry.amount()), party(entry.senderId()),
+            party(entry.receiverId()), entry.timestamp());
+    }
+
+    // O ledger só usa o id das partes
+    private static User party(UUID id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
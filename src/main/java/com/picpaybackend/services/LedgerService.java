@@ -0,0 +1,204 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.ledger.BalanceSlot;
+import com.picpaybackend.domain.ledger.BalanceSnapshot;
+import com.picpaybackend.domain.ledger.EntryDirection;
+import com.picpaybackend.domain.ledger.HotAccount;
+import com.picpaybackend.domain.ledger.LedgerCheckpoint;
+import com.picpaybackend.domain.ledger.LedgerEntry;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.dtos.AccountBalanceDTO;
+import com.picpaybackend.repositories.BalanceSlotRepository;
+import com.picpaybackend.repositories.BalanceSnapshotRepository;
+import com.picpaybackend.repositories.HotAccountRepository;
+import com.picpaybackend.repositories.LedgerCheckpointRepository;
+import com.picpaybackend.repositories.LedgerEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+public class LedgerService {
+
+    // Checkpoint inicial, antes de qualquer lançamento possível
+    static final LocalDateTime ORIGIN = LocalDateTime.of(2000, 1, 1, 0, 0);
+    static final int MAX_SLOTS = 256;
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    private final LedgerEntryRepository entryRepository;
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final BalanceSlotRepository slotRepository;
+    private final HotAccountRepository hotAccountRepository;
+    private final long graceMs;
+    // Contas quentes e quantidade de fatias. Recarregado periodicamente; uma visão defasada só
+    // faz um lançamento ir para o delta em vez de uma fatia, nunca ser contado duas vezes.
+    private volatile Map<UUID, Integer> hotAccounts = Map.of();
+
+    @Autowired
+    public LedgerService(LedgerEntryRepository entryRepository, BalanceSnapshotRepository snapshotRepository,
+                         LedgerCheckpointRepository checkpointRepository, BalanceSlotRepository slotRepository,
+                         HotAccountRepository hotAccountRepository,
+                         @Value("${ledger.snapshot.grace-ms:300000}") long graceMs) {
+        this.entryRepository = entryRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.slotRepository = slotRepository;
+        this.hotAccountRepository = hotAccountRepository;
+        this.graceMs = graceMs;
+    }
+
+    public void openAccount(UUID accountId, Money openingBalance) {
+        if (openingBalance == null || openingBalance.signum() == 0) {
+            return;
+        }
+        EntryDirection direction = openingBalance.signum() > 0 ? EntryDirection.CREDIT : EntryDirection.DEBIT;
+        entryRepository.save(new LedgerEntry(accountId, null, direction, openingBalance.abs(), LocalDateTime.now()));
+    }
+
+    public void recordTransfer(Transaction transaction) {
+        recordTransfers(List.of(transaction));
+    }
+
+    // Partidas dobradas: cada transferência gera um débito no remetente e um crédito no
+    // destinatário. Só inserts; nenhuma linha existente é alterada.
+    //
+    // created_at é o momento da gravação, não o da transação: a consolidação só soma lançamentos a
+    // partir do checkpoint, e um lançamento gravado com data anterior (replicação atrasada do
+    // engine) ficaria fora de todos os saldos. A data da transferência fica na própria transação.
+    public void recordTransfers(Collection<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        LocalDateTime createdAt = LocalDateTime.now();
+        for (Transaction transaction : transactions) {
+            entries.add(new LedgerEntry(transaction.getSender().getId(), transaction.getId(), EntryDirection.DEBIT, transaction.getAmount(), createdAt));
+            entries.add(new LedgerEntry(transaction.getReceiver().getId(), transaction.getId(), EntryDirection.CREDIT, transaction.getAmount(), createdAt));
+        }
+        for (LedgerEntry entry : entries) {
+            applyToSlot(entry);
+        }
+        entryRepository.saveAll(entries);
+    }
+
+    // Em conta quente o valor também é somado a uma fatia sorteada, na mesma transação do
+    // lançamento. Se a fatia ainda não existe (configuração recém-alterada em outra instância),
+    // o lançamento simplesmente segue pelo caminho normal.
+    private void applyToSlot(LedgerEntry entry) {
+        Integer slots = hotAccounts.get(entry.getAccountId());
+        if (slots == null || slots <= 0) {
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (slotRepository.addToSlot(entry.getAccountId(), slot, entry.signedAmount().minorUnits()) == 1) {
+            entry.markSlotted();
+        }
+    }
+
+    // slots = 0 desliga o modo: as fatias existentes continuam somando no saldo, só deixam de
+    // receber lançamentos. Reduzir a quantidade funciona do mesmo jeito.
+    @Transactional
+    public int configureHotAccount(UUID accountId, int slots) {
+        if (slots < 0 || slots > MAX_SLOTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantidade de fatias deve estar entre 0 e " + MAX_SLOTS);
+        }
+        if (slots == 0) {
+            hotAccountRepository.findById(accountId).ifPresent(hotAccountRepository::delete);
+        } else {
+            HotAccount hotAccount = hotAccountRepository.findById(accountId)
+                .orElseGet(() -> new HotAccount(accountId, slots, LocalDateTime.now()));
+            hotAccount.setSlots(slots);
+            hotAccount.setUpdatedAt(LocalDateTime.now());
+            hotAccountRepository.save(hotAccount);
+
+            List<BalanceSlot> missing = new ArrayList<>();
+            for (int slot = slotRepository.countSlots(accountId); slot < slots; slot++) {
+                missing.add(new BalanceSlot(accountId, slot));
+            }
+            slotRepository.saveAll(missing);
+        }
+
+        Map<UUID, Integer> updated = new HashMap<>(hotAccounts);
+        if (slots == 0) {
+            updated.remove(accountId);
+        } else {
+            updated.put(accountId, slots);
+        }
+        hotAccounts = Map.copyOf(updated);
+        logger.info("Conta {} configurada com {} fatias de saldo", accountId, slots);
+        return slots;
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.hot-accounts.refresh-ms:10000}")
+    public void refreshHotAccounts() {
+        Map<UUID, Integer> loaded = new HashMap<>();
+        for (HotAccount hotAccount : hotAccountRepository.findAll()) {
+            loaded.put(hotAccount.getAccountId(), hotAccount.getSlots());
+        }
+        hotAccounts = Map.copyOf(loaded);
+    }
+
+    public Optional<Money> currentBalance(UUID accountId) {
+        return Optional.ofNullable(currentBalances(List.of(accountId)).get(accountId));
+    }
+
+    public Map<UUID, Money> currentBalances(Collection<UUID> accountIds) {
+        Map<UUID, Money> balances = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return balances;
+        }
+        for (AccountBalanceDTO balance : entryRepository.findCurrentBalances(accountIds, ORIGIN)) {
+            balances.put(balance.accountId(), balance.balance());
+        }
+        return balances;
+    }
+
+    // Recalcula o saldo a partir de todos os lançamentos, ignorando os snapshots (auditoria).
+    public Money replayBalance(UUID accountId) {
+        return Money.ofMinor(entryRepository.replayBalance(accountId));
+    }
+
+    // Consolida nos snapshots os lançamentos entre o checkpoint anterior e agora - grace. A folga
+    // cobre transações que já gravaram seus lançamentos mas ainda não fizeram commit: um lançamento
+    // que ficasse visível só depois da consolidação da sua janela seria perdido pelo saldo.
+    @Scheduled(fixedDelayString = "${ledger.snapshot.interval-ms:60000}")
+    @Transactional
+    public void consolidate() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusNanos(graceMs * 1_000_000);
+        // O lock no checkpoint serializa a consolidação entre instâncias
+        LedgerCheckpoint checkpoint = checkpointRepository.findForUpdate()
+            .orElseGet(() -> checkpointRepository.saveAndFlush(new LedgerCheckpoint(ORIGIN)));
+        if (!cutoff.isAfter(checkpoint.getAsOf())) {
+            return;
+        }
+
+        List<AccountBalanceDTO> deltas = entryRepository.sumByAccountBetween(checkpoint.getAsOf(), cutoff);
+        List<UUID> accountIds = deltas.stream().map(AccountBalanceDTO::accountId).toList();
+        Map<UUID, BalanceSnapshot> snapshots = new HashMap<>();
+        for (BalanceSnapshot snapshot : snapshotRepository.findAllById(accountIds)) {
+            snapshots.put(snapshot.getAccountId(), snapshot);
+        }
+        for (AccountBalanceDTO delta : deltas) {
+            snapshots.computeIfAbsent(delta.accountId(), id -> new BalanceSnapshot(id, Money.ZERO, now))
+                .fold(delta.balance(), now);
+        }
+        snapshotRepository.saveAll(snapshots.values());
+        checkpoint.setAsOf(cutoff);
+        checkpointRepository.save(checkpoint);
+
+        if (!deltas.isEmpty()) {
+            logger.info("Ledger consolidado até {}: {} contas atualizadas", cutoff, deltas.size());
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.picpaybackend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picpaybackend.domain.notification.NotificationOutbox;
+import com.picpaybackend.domain.notification.NotificationStatus;
+import com.picpaybackend.repositories.NotificationOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Cada lote reservado é agrupado por destinatário e os grupos são entregues em paralelo
+// (notificationExecutor): remetente e recebedor de uma transferência não esperam um pelo outro.
+//
+// Com coalesce-window-ms > 0, um destinatário que recebeu algo há menos de uma janela tem as
+// próximas notificações adiadas até o fim dela, e tudo que acumulou vai num único resumo. Quem
+// recebe pouco continua sendo notificado na hora; um lojista com 500 pagamentos por minuto recebe
+// uma chamada por janela. Cada lote reserva no máximo max-digest-size notificações por
+// destinatário, que é também o tamanho máximo do resumo: um destinatário muito ativo não ocupa
+// os lotes dos demais, e o restante da fila dele sai nas janelas seguintes.
+// O controle das janelas é local a cada instância do dispatcher.
+@Service
+public class NotificationDispatcher {
+
+    private static final List<String> DISPATCHABLE = List.of(NotificationStatus.PENDING.name(), NotificationStatus.SENDING.name());
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final long leaseMs;
+    private final long coalesceWindowMs;
+    private final int maxDigestSize;
+    private final Cache<String, Long> lastDeliveries;
+
+    @Autowired
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+                                  NotificationService notificationService,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier("notificationExecutor") Executor executor,
+                                  @Value("${notification.dispatcher.batch-size:100}") int batchSize,
+                                  @Value("${notification.dispatcher.max-attempts:10}") int maxAttempts,
+                                  @Value("${notification.dispatcher.initial-backoff-ms:1000}") long initialBackoffMs,
+                                  @Value("${notification.dispatcher.max-backoff-ms:300000}") long maxBackoffMs,
+                                  @Value("${notification.dispatcher.lease-ms:60000}") long leaseMs,
+                                  @Value("${notification.dispatcher.coalesce-window-ms:5000}") long coalesceWindowMs,
+                                  @Value("${notification.dispatcher.max-digest-size:50}") int maxDigestSize) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.leaseMs = leaseMs;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.maxDigestSize = Math.max(1, maxDigestSize);
+        this.lastDeliveries = coalesceWindowMs > 0
+            ? Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(coalesceWindowMs)).maximumSize(100_000).<String, Long>build()
+            : null;
+    }
+
+    @Scheduled(fixedDelayString = "${notification.dispatcher.interval-ms:1000}")
+    public void dispatchPending() {
+        int dispatched;
+        do {
+            dispatched = dispatchBatch();
+        } while (dispatched == batchSize);
+    }
+
+    public int dispatchBatch() {
+        List<NotificationOutbox> batch = claimBatch();
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (List<NotificationOutbox> group : groupByRecipient(batch)) {
+            deliveries.add(CompletableFuture.runAsync(() -> deliver(group), executor));
+        }
+        CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).join();
+
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.saveAll(batch));
+        return batch.size();
+    }
+
+    // As linhas são reservadas (SENDING com prazo de lease) numa transação curta, e o envio
+    // remoto acontece fora dela: nenhuma conexão fica presa esperando o notificador. Se este
+    // processo cair no meio do envio, o lease expira e outro dispatcher retoma a notificação.
+    private List<NotificationOutbox> claimBatch() {
+        List<NotificationOutbox> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NotificationOutbox> due = outboxRepository.findDueForUpdate(DISPATCHABLE, now, maxDigestSize, batchSize);
+            for (NotificationOutbox notification : due) {
+                notification.setStatus(NotificationStatus.SENDING);
+                notification.setNextAttemptAt(now.plusNanos(leaseMs * 1_000_000));
+            }
+            return outboxRepository.saveAll(due);
+        });
+        return batch == null ? List.of() : batch;
+    }
+
+    // Sem janela, cada notificação é entregue sozinha, como antes
+    private List<List<NotificationOutbox>> groupByRecipient(List<NotificationOutbox> batch) {
+        if (lastDeliveries == null) {
+            return batch.stream().map(List::of).toList();
+        }
+
+        Map<String, List<NotificationOutbox>> byRecipient = new LinkedHashMap<>();
+        for (NotificationOutbox notification : batch) {
+            byRecipient.computeIfAbsent(notification.getEmail(), email -> new ArrayList<>()).add(notification);
+        }
+
+        List<List<NotificationOutbox>> groups = new ArrayList<>();
+        for (Map.Entry<String, List<NotificationOutbox>> entry : byRecipient.entrySet()) {
+            Long lastDelivery = lastDeliveries.getIfPresent(entry.getKey());
+            if (lastDelivery != null) {
+                postpone(entry.getValue(), lastDelivery + coalesceWindowMs);
+            } else {
+                groups.add(entry.getValue());
+            }
+        }
+        return groups;
+    }
+
+    // Volta para a fila sem gastar tentativa, para sair junto com o próximo resumo
+    private static void postpone(List<NotificationOutbox> notifications, long untilMillis) {
+        LocalDateTime until = LocalDateTime.now().plusNanos((untilMillis - System.currentTimeMillis()) * 1_000_000);
+        for (NotificationOutbox notification : notifications) {
+            notification.setStatus(NotificationStatus.PENDING);
+            notification.setNextAttemptAt(until);
+        }
+    }
+
+    private void deliver(List<NotificationOutbox> group) {
+        NotificationOutbox first = group.get(0);
+        String message = group.size() == 1 ? first.getMessage() : digest(group);
+        try {
+            notificationService.sendNotification(first.getEmail(), message);
+            if (lastDeliveries != null) {
+                // Só entrega confirmada abre a janela: após uma falha o destinatário não fica retido
+                lastDeliveries.put(first.getEmail(), System.currentTimeMillis());
+            }
+            LocalDateTime sentAt = LocalDateTime.now();
+            for (NotificationOutbox notification : group) {
+                notification.setAttempts(notification.getAttempts() + 1);
+                notification.setStatus(NotificationStatus.SENT);
+                notification.setSentAt(sentAt);
+                notification.setLastError(null);
+            }
+            if (group.size() > 1) {
+                logger.debug("Resumo com {} notificações enviado para {}", group.size(), first.getEmail());
+            }
+        } catch (Exception e) {
+            String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            for (NotificationOutbox notification : group) {
+                fail(notification, error.length() > 500 ? error.substring(0, 500) : error);
+            }
+        }
+    }
+
+    private void fail(NotificationOutbox notification, String error) {
+        notification.setAttempts(notification.getAttempts() + 1);
+        notification.setLastError(error);
+
+        if (notification.getAttempts() >= maxAttempts) {
+            notification.setStatus(NotificationStatus.FAILED);
+            logger.error("Notificação {} descartada após {} tentativas: {}", notification.getId(), notification.getAttempts(), error);
+            return;
+        }
+
+        long backoff = backoffMs(notification.getAttempts());
+        notification.setStatus(NotificationStatus.PENDING);
+        notification.setNextAttemptAt(LocalDateTime.now().plusNanos(backoff * 1_000_000));
+        logger.warn("Falha ao enviar notificação {}, tentativa {}/{}. Nova tentativa em {}ms.",
+            notification.getId(), notification.getAttempts(), maxAttempts, backoff);
+    }
+
+    // Mensagens iguais são contadas uma vez só: "3 notificações: Transação concluída com sucesso (3x)"
+    private static String digest(List<NotificationOutbox> group) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (NotificationOutbox notification : group) {
+            counts.merge(notification.getMessage(), 1, Integer::sum);
+        }
+        StringJoiner joiner = new StringJoiner("; ", group.size() + " notificações: ", "");
+        counts.forEach((message, count) -> joiner.add(count == 1 ? message : message + " (" + count + "x)"));
+        return joiner.toString();
+    }
+
+    private long backoffMs(int attempts) {
+        int exponent = Math.min(attempts - 1, 30);
+        return Math.min(maxBackoffMs, initialBackoffMs << exponent);
+    }
+}
@@ -1,30 +1,54 @@
 package com.picpaybackend.services;
 
+import com.picpaybackend.domain.notification.NotificationOutbox;
 import com.picpaybackend.domain.user.User;
 import com.picpaybackend.dtos.NotificationDTO;
+import com.picpaybackend.repositories.NotificationOutboxRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDateTime;
+
 @Service
 public class NotificationService {
 
     private final RestTemplate restTemplate;
+    private final NotificationOutboxRepository outboxRepository;
+    private final String notifyPath;
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
     @Autowired
-    public NotificationService(RestTemplate restTemplate) {
+    public NotificationService(@Qualifier("notifierRestTemplate") RestTemplate restTemplate, NotificationOutboxRepository outboxRepository,
+                               @Value("${notification.path:/notify}") String notifyPath) {
         this.restTemplate = restTemplate;
+        this.outboxRepository = outboxRepository;
+        this.notifyPath = notifyPath;
+    }
+
+    public void enqueueNotification(User user, String message) {
+        enqueueNotification(user.getEmail(), message);
+    }
+
+    public void enqueueNotification(String email, String message) {
+        NotificationOutbox notification = new NotificationOutbox(email, message, LocalDateTime.now());
+        outboxRepository.save(notification);
+        logger.debug("Notificação enfileirada para {}", email);
     }
 
     public void sendNotification(User user, String message) throws Exception{
-        String email = user.getEmail();
+        sendNotification(user.getEmail(), message);
+    }
+
+    public void sendNotification(String email, String message) throws Exception{
         NotificationDTO notificationRequest = new NotificationDTO(email, message);
-        ResponseEntity<String> notificationResponse = restTemplate.postForEntity("https://util.devi.tools/api/v1/notify", notificationRequest, String.class);
+        ResponseEntity<String> notificationResponse = restTemplate.postForEntity(notifyPath, notificationRequest, String.class);
 
         if(notificationResponse.getStatusCode() != HttpStatus.OK){
             logger.error("Falha no envio de notificação");
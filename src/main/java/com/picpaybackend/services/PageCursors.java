@@ -0,0 +1,40 @@
+package com.picpaybackend.services;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+final class PageCursors {
+
+    static final int MAX_PAGE_SIZE = 500;
+    static final int STREAM_CLEAR_INTERVAL = 500;
+
+    private PageCursors() {
+    }
+
+    static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    static String encode(String... values) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.join("|", values).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // O parser só converte os campos do cursor; a consulta fica fora, para que uma falha do banco
+    // não seja respondida como cursor inválido (400)
+    static <T> T decode(String cursor, int parts, Function<String[], T> parser) {
+        try {
+            String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            if (values.length != parts) {
+                throw new IllegalArgumentException("Quantidade de campos inválida");
+            }
+            return parser.apply(values);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de paginação inválido", e);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.picpaybackend.services;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picpaybackend.domain.authorization.AuthorizationDecision;
+import com.picpaybackend.domain.id.UuidV7Generator;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.infra.PreAuthorizationRules;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Pré-autorização local: regras avaliadas em memória antes da chamada ao autorizador remoto, que
+// só é feita quando nenhuma regra decide (DEFER). Ordem: lista de bloqueio, valor máximo,
+// velocidade do remetente, lista de liberação e valor baixo com tempo de conta mínimo.
+//
+// As regras vêm de um arquivo JSON (PreAuthorizationRules), recarregado quando muda; um arquivo
+// inválido é ignorado e as regras anteriores continuam valendo. Sem arquivo, tudo segue para o
+// autorizador remoto. Cada decisão é contada (authorization.local.decisions) e registrada no
+// logger authorization.audit com a versão das regras que a produziu.
+//
+// A janela de velocidade só conta transferências efetivadas: quem aplica a transferência chama
+// recordReleased, e dentro de uma transação o registro só acontece após o commit. Recusadas,
+// adiadas, sem saldo ou desfeitas por rollback não gastam o limite do remetente.
+@Service
+public class PreAuthorizationService {
+
+    public record Decision(AuthorizationDecision result, String rule) {
+    }
+
+    private static final Decision DEFAULT = new Decision(AuthorizationDecision.DEFER, "default");
+    private static final int VELOCITY_BUCKETS = 10;
+    private static final Logger logger = LoggerFactory.getLogger(PreAuthorizationService.class);
+    private static final Logger audit = LoggerFactory.getLogger("authorization.audit");
+
+    private final ObjectReader reader;
+    private final MeterRegistry meterRegistry;
+    private final Timer evaluationTimer;
+    private final Path rulesFile;
+    private final long maxTrackedSenders;
+    private volatile RuleSet ruleSet;
+    private long loadedModifiedAt = -1;
+
+    @Autowired
+    public PreAuthorizationService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                   @Value("${authorization.rules.file:}") String rulesFile,
+                                   @Value("${authorization.rules.max-tracked-senders:100000}") long maxTrackedSenders) {
+        // Campo com nome errado no arquivo vira erro, em vez de desligar a regra em silêncio
+        this.reader = objectMapper.readerFor(PreAuthorizationRules.class).with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.meterRegistry = meterRegistry;
+        this.evaluationTimer = meterRegistry.timer("authorization.local.evaluation");
+        this.rulesFile = rulesFile == null || rulesFile.isBlank() ? null : Paths.get(rulesFile);
+        this.maxTrackedSenders = maxTrackedSenders;
+        this.ruleSet = new RuleSet(PreAuthorizationRules.NONE, "nenhuma", maxTrackedSenders);
+        reload();
+    }
+
+    public Decision evaluate(UUID senderId, Money value) {
+        long start = System.nanoTime();
+        RuleSet current = ruleSet;
+        long now = System.currentTimeMillis();
+        Decision decision = current.evaluate(senderId, value, now);
+        evaluationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        meterRegistry.counter("authorization.local.decisions", "decision", decision.result().name().toLowerCase(),
+            "rule", decision.rule()).increment();
+        audit.info("decisao={} regra={} remetente={} valor={} regras={}", decision.result(), decision.rule(), senderId, value, current.version);
+        return decision;
+    }
+
+    // Transferência autorizada e aplicada. Dentro de uma transação, conta só após o commit.
+    public void recordReleased(UUID senderId, Money value) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ruleSet.record(senderId, value, System.currentTimeMillis());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ruleSet.record(senderId, value, System.currentTimeMillis());
+            }
+        });
+    }
+
+    public String getRulesVersion() {
+        return ruleSet.version;
+    }
+
+    @Scheduled(fixedDelayString = "${authorization.rules.refresh-ms:5000}")
+    public synchronized void reload() {
+        if (rulesFile == null) {
+            return;
+        }
+        try {
+            if (!Files.exists(rulesFile)) {
+                if (loadedModifiedAt != -1) {
+                    logger.warn("Arquivo de regras {} removido; todas as transações seguem para o autorizador remoto", rulesFile);
+                    ruleSet = new RuleSet(PreAuthorizationRules.NONE, "nenhuma", maxTrackedSenders);
+                    loadedModifiedAt = -1;
+                }
+                return;
+            }
+            long modifiedAt = Files.getLastModifiedTime(rulesFile).toMillis();
+            if (modifiedAt == loadedModifiedAt) {
+                return;
+            }
+            // Marcado antes de validar: um arquivo inválido é reportado uma vez, não a cada ciclo
+            loadedModifiedAt = modifiedAt;
+            byte[] content = Files.readAllBytes(rulesFile);
+            PreAuthorizationRules rules = reader.readValue(content);
+            validate(rules);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            ruleSet = new RuleSet(rules, Long.toHexString(crc.getValue()), maxTrackedSenders);
+            logger.info("Regras de pré-autorização carregadas de {} (versão {})", rulesFile, ruleSet.version);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Regras de pré-autorização inválidas em {}; mantidas as anteriores (versão {})", rulesFile, ruleSet.version, e);
+        }
+    }
+
+    private static void validate(PreAuthorizationRules rules) {
+        PreAuthorizationRules.Velocity velocity = rules.velocity();
+        if (velocity != null) {
+            if (velocity.window() == null || velocity.window().toMillis() < VELOCITY_BUCKETS) {
+                throw new IllegalArgumentException("Janela de velocidade deve ter ao menos " + VELOCITY_BUCKETS + "ms");
+            }
+            if (velocity.maxCount() < 0) {
+                throw new IllegalArgumentException("Quantidade máxima de velocidade não pode ser negativa");
+            }
+        }
+    }
+
+    private interface Rule {
+        // null quando a regra não se aplica e a próxima deve ser avaliada
+        Decision apply(UUID senderId, Money value, long now);
+    }
+
+    // Imutável, exceto pelas janelas de velocidade; trocado inteiro a cada recarga
+    private static final class RuleSet {
+        final String version;
+        final List<Rule> rules = new ArrayList<>();
+        final VelocityRule velocity;
+
+        RuleSet(PreAuthorizationRules config, String version, long maxTrackedSenders) {
+            this.version = version;
+            if (!config.deny().isEmpty()) {
+                Decision deny = new Decision(AuthorizationDecision.DENY, "deny-list");
+                rules.add((senderId, value, now) -> config.deny().contains(senderId) ? deny : null);
+            }
+            if (config.denyAbove() != null) {
+                Decision deny = new Decision(AuthorizationDecision.DENY, "amount-limit");
+                rules.add((senderId, value, now) -> config.denyAbove().isLessThan(value) ? deny : null);
+            }
+            this.velocity = config.velocity() == null ? null : new VelocityRule(config.velocity(), maxTrackedSenders);
+            if (velocity != null) {
+                rules.add(velocity);
+            }
+            if (!config.allow().isEmpty()) {
+                Decision approve = new Decision(AuthorizationDecision.APPROVE, "allow-list");
+                rules.add((senderId, value, now) -> config.allow().contains(senderId) ? approve : null);
+            }
+            if (config.approveUpTo() != null) {
+                Decision approve = new Decision(AuthorizationDecision.APPROVE, "low-value");
+                long minTenureMs = config.minTenure() == null ? 0 : config.minTenure().toMillis();
+                rules.add((senderId, value, now) -> {
+                    if (config.approveUpTo().isLessThan(value)) {
+                        return null;
+                    }
+                    if (minTenureMs > 0) {
+                        // Tempo de conta vem do próprio id (UUIDv7); id antigo, sem data, não é aprovado localmente
+                        long createdAt = UuidV7Generator.timestampMillis(senderId);
+                        if (createdAt < 0 || now - createdAt < minTenureMs) {
+                            return null;
+                        }
+                    }
+                    return approve;
+                });
+            }
+        }
+
+        Decision evaluate(UUID senderId, Money value, long now) {
+            for (Rule rule : rules) {
+                Decision decision = rule.apply(senderId, value, now);
+                if (decision != null) {
+                    return decision;
+                }
+            }
+            return DEFAULT;
+        }
+
+        void record(UUID senderId, Money value, long now) {
+            if (velocity != null) {
+                velocity.record(senderId, value, now);
+            }
+        }
+    }
+
+    // Janela deslizante aproximada por remetente: VELOCITY_BUCKETS fatias da janela, cada uma com
+    // contagem e soma. Remetentes parados saem do cache; o tamanho máximo limita a memória.
+    // Verificar e registrar são passos separados: transferências simultâneas do mesmo remetente
+    // podem passar juntas do limite, o que a aproximação da janela já admite.
+    private static final class VelocityRule implements Rule {
+        private static final Decision DEFER = new Decision(AuthorizationDecision.DEFER, "velocity");
+
+        private final Cache<UUID, SenderWindow> windows;
+        private final long bucketMs;
+        private final int maxCount;
+        private final long maxAmount;
+
+        VelocityRule(PreAuthorizationRules.Velocity velocity, long maxTrackedSenders) {
+            this.windows = Caffeine.newBuilder()
+                .maximumSize(maxTrackedSenders)
+                .expireAfterAccess(velocity.window())
+                .build();
+            this.bucketMs = velocity.window().toMillis() / VELOCITY_BUCKETS;
+            this.maxCount = velocity.maxCount();
+            this.maxAmount = velocity.maxAmount() == null ? 0 : velocity.maxAmount().minorUnits();
+        }
+
+        @Override
+        public Decision apply(UUID senderId, Money value, long now) {
+            // Só consulta: remetente sem transferências liberadas na janela não ganha entrada no cache
+            SenderWindow window = windows.getIfPresent(senderId);
+            return (window == null ? SenderWindow.EMPTY : window).exceeds(now / bucketMs, value.minorUnits(), maxCount, maxAmount) ? DEFER : null;
+        }
+
+        void record(UUID senderId, Money value, long now) {
+            windows.get(senderId, id -> new SenderWindow()).record(now / bucketMs, value.minorUnits());
+        }
+    }
+
+    // ReentrantLock em vez de synchronized: com threads virtuais, synchronized prende a thread
+    // portadora (mesmo motivo do CircuitBreaker)
+    private static final class SenderWindow {
+        static final SenderWindow EMPTY = new SenderWindow();
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] buckets = new long[VELOCITY_BUCKETS];
+        private final long[] counts = new long[VELOCITY_BUCKETS];
+        private final long[] amounts = new long[VELOCITY_BUCKETS];
+
+        // Diz se a transferência atual, somada à janela, passaria de algum limite (0 desliga o limite)
+        boolean exceeds(long bucket, long amount, int maxCount, long maxAmount) {
+            long count = 1;
+            long total = amount;
+            lock.lock();
+            try {
+                for (int i = 0; i < VELOCITY_BUCKETS; i++) {
+                    if (buckets[i] > bucket - VELOCITY_BUCKETS) {
+                        count += counts[i];
+                        total += amounts[i];
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            return (maxCount > 0 && count > maxCount) || (maxAmount > 0 && total > maxAmount);
+        }
+
+        void record(long bucket, long amount) {
+            int index = (int) (bucket % VELOCITY_BUCKETS);
+            lock.lock();
+            try {
+                if (buckets[index] != bucket) {
+                    buckets[index] = bucket;
+                    counts[index] = 0;
+                    amounts[index] = 0;
+                }
+                counts[index]++;
+                amounts[index] += amount;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
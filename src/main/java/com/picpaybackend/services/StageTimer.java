@@ -0,0 +1,69 @@
+package com.picpaybackend.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+// Mede as etapas de uma operação no timer transaction.stage (operation, stage, outcome). Cada
+// start() fecha a etapa anterior como sucesso; se a operação sair por exceção, o close() registra
+// a etapa em andamento como erro. O commit (com o flush do Hibernate) vira a etapa "commit".
+final class StageTimer implements AutoCloseable {
+
+    static final String METRIC = "transaction.stage";
+
+    private final MeterRegistry meterRegistry;
+    private final String operation;
+    private String stage;
+    private long startNanos;
+
+    StageTimer(MeterRegistry meterRegistry, String operation) {
+        this.meterRegistry = meterRegistry;
+        this.operation = operation;
+    }
+
+    void start(String stage) {
+        long now = System.nanoTime();
+        if (this.stage != null) {
+            record(this.stage, "success", now - startNanos);
+        }
+        this.stage = stage;
+        this.startNanos = now;
+    }
+
+    // Fecha a última etapa e passa a medir o commit da transação corrente, se houver uma
+    void finish() {
+        start(null);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private long commitStart;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    commitStart = System.nanoTime();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (commitStart != 0) {
+                        record("commit", status == STATUS_COMMITTED ? "success" : "error", System.nanoTime() - commitStart);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        if (stage != null) {
+            record(stage, "error", System.nanoTime() - startNanos);
+            stage = null;
+        }
+    }
+
+    private void record(String stage, String outcome, long nanos) {
+        meterRegistry.timer(METRIC, "operation", operation, "stage", stage, "outcome", outcome)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,126 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.ledger.EntryDirection;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.StatementEntryDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+// Extrato de uma conta direto do ledger, por JDBC: cursor só para frente (fetch size), uma linha
+// por vez, sem entidades nem contexto de persistência. O saldo corrente é calculado durante a
+// leitura a partir do saldo de abertura do período, então a memória não cresce com o extrato.
+@Service
+public class StatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementService.class);
+    private static final int FETCH_SIZE = 500;
+    public static final String CSV_HEADER = "timestamp,transactionId,direction,amount,counterpartyId,balance";
+
+    // O índice (account_id, slotted, created_at) restringe a leitura aos lançamentos da conta no
+    // período, sem um índice a mais no ledger (que custaria em todo insert de transferência). A
+    // ordenação fica com o banco: o plano usual junta com transactions por hash e ordena as linhas
+    // da conta no período, então o custo cresce com o extrato pedido, não com o ledger. O id
+    // desempata lançamentos do mesmo lote, que têm o mesmo created_at.
+    private static final String ENTRIES = """
+        SELECT e.id, e.created_at, e.direction, e.amount, e.transaction_id,
+               CASE WHEN e.direction = 'DEBIT' THEN t.receiver_id ELSE t.sender_id END AS counterparty_id
+        FROM (
+            SELECT id, created_at, direction, amount, transaction_id FROM ledger_entries
+            WHERE account_id = ? AND slotted = FALSE AND created_at >= ? AND created_at < ?
+            UNION ALL
+            SELECT id, created_at, direction, amount, transaction_id FROM ledger_entries
+            WHERE account_id = ? AND slotted = TRUE AND created_at >= ? AND created_at < ?
+        ) e
+        LEFT JOIN transactions t ON t.id = e.transaction_id
+        ORDER BY e.created_at, e.id
+        """;
+
+    private static final String OPENING_BALANCE = """
+        SELECT COALESCE(SUM(CASE WHEN direction = 'DEBIT' THEN -amount ELSE amount END), 0)
+        FROM ledger_entries WHERE account_id = ? AND created_at < ?
+        """;
+
+    private static final LocalDateTime STATEMENT_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime STATEMENT_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserService userService;
+    private final Semaphore exports;
+
+    @Autowired
+    public StatementService(JdbcTemplate jdbcTemplate, UserService userService,
+                            @Value("${statement.max-concurrent-exports:2}") int maxConcurrentExports) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userService = userService;
+        this.exports = new Semaphore(maxConcurrentExports);
+    }
+
+    // Valida o pedido e reserva uma vaga antes de a resposta começar: cada exportação segura uma
+    // conexão do pool enquanto durar, e o pool é o mesmo das transferências. O Runnable devolvido
+    // libera a vaga ao fim do streaming.
+    public Runnable reserveExport(UUID accountId, LocalDateTime from, LocalDateTime to) {
+        userService.getProfile(accountId);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Período inválido: início deve ser anterior ao fim");
+        }
+        if (!exports.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Limite de exportações simultâneas atingido");
+        }
+        return exports::release;
+    }
+
+    // REPEATABLE_READ: o saldo de abertura e os lançamentos saem do mesmo snapshot
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void streamStatement(UUID accountId, LocalDateTime from, LocalDateTime to, Consumer<StatementEntryDTO> consumer) {
+        logger.info("Exportando extrato da conta {} de {} a {}.", accountId, from, to);
+        Timestamp start = Timestamp.valueOf(from == null ? STATEMENT_START : from);
+        Timestamp end = Timestamp.valueOf(to == null ? STATEMENT_END : to);
+
+        long[] balance = new long[1];
+        if (from != null) {
+            balance[0] = jdbcTemplate.queryForObject(OPENING_BALANCE, Long.class, accountId, start);
+        }
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ENTRIES);
+            statement.setFetchSize(FETCH_SIZE);
+            for (int offset : new int[]{0, 3}) {
+                statement.setObject(offset + 1, accountId);
+                statement.setTimestamp(offset + 2, start);
+                statement.setTimestamp(offset + 3, end);
+            }
+            return statement;
+        }, row -> {
+            EntryDirection direction = EntryDirection.valueOf(row.getString("direction"));
+            long amount = direction == EntryDirection.DEBIT ? -row.getLong("amount") : row.getLong("amount");
+            balance[0] += amount;
+            consumer.accept(new StatementEntryDTO(row.getTimestamp("created_at").toLocalDateTime(),
+                row.getObject("transaction_id", UUID.class), direction, Money.ofMinor(amount),
+                row.getObject("counterparty_id", UUID.class), Money.ofMinor(balance[0])));
+        });
+    }
+
+    public static String toCsv(StatementEntryDTO entry) {
+        return entry.timestamp() + "," + nullToEmpty(entry.transactionId()) + "," + entry.direction() + ","
+            + entry.amount() + "," + nullToEmpty(entry.counterpartyId()) + "," + entry.balance();
+    }
+
+    private static String nullToEmpty(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,152 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Transações de partições antigas, um arquivo CSV gzip por mês. Cada arquivo é escrito uma única
+// vez (temporário + fsync + rename atômico) e fica somente leitura; o diretório só recebe arquivos
+// novos. A leitura percorre o arquivo em streaming, sem passar pelo banco.
+@Service
+public class TransactionArchiveService {
+
+    static final String HEADER = "id,timestamp,amount,reversed,senderId,receiverId";
+    private static final Pattern FILE_NAME = Pattern.compile("transactions-(\\d{4}-\\d{2})\\.csv\\.gz");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Logger logger = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private final Path directory;
+
+    @Autowired
+    public TransactionArchiveService(@Value("${transactions.archive.dir:archive/transactions}") String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    public boolean isArchived(YearMonth month) {
+        return Files.exists(file(month));
+    }
+
+    public List<YearMonth> listMonths() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> FILE_NAME.matcher(path.getFileName().toString()))
+                .filter(Matcher::matches)
+                .map(matcher -> YearMonth.parse(matcher.group(1)))
+                .sorted()
+                .toList();
+        }
+    }
+
+    // source entrega as linhas do mês; devolve quantas foram gravadas
+    public long archive(YearMonth month, Consumer<Consumer<TransactionSummaryDTO>> source) throws IOException {
+        Path target = file(month);
+        if (Files.exists(target)) {
+            throw new IllegalStateException("Mês já arquivado: " + month);
+        }
+        Files.createDirectories(directory);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        long[] rows = new long[1];
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            out.write(HEADER);
+            out.write('\n');
+            try {
+                source.accept(transaction -> {
+                    try {
+                        out.write(toCsv(transaction));
+                        out.write('\n');
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            gzip.finish();
+            channel.force(true);
+        }
+
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        target.toFile().setReadOnly();
+        logger.info("Transações de {} arquivadas em {}: {} linhas", month, target, rows[0]);
+        return rows[0];
+    }
+
+    // userId opcional: só transações em que o usuário é remetente ou destinatário
+    public void readMonth(YearMonth month, UUID userId, Consumer<TransactionSummaryDTO> consumer) {
+        Path source = file(month);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                 new GZIPInputStream(Files.newInputStream(source), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            in.readLine();
+            String line;
+            while ((line = in.readLine()) != null) {
+                TransactionSummaryDTO transaction = fromCsv(line);
+                if (userId == null || userId.equals(transaction.senderId()) || userId.equals(transaction.receiverId())) {
+                    consumer.accept(transaction);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Chamado antes de a resposta começar, para o 404 não virar um stream vazio
+    public void requireArchived(YearMonth month) {
+        if (!isArchived(month)) {
+            throw new EntityNotFoundException("Nenhuma transação arquivada para o mês: " + month);
+        }
+    }
+
+    private Path file(YearMonth month) {
+        return directory.resolve("transactions-" + month + ".csv.gz");
+    }
+
+    static String toCsv(TransactionSummaryDTO transaction) {
+        return transaction.id() + "," + transaction.timestamp() + "," + transaction.amount() + ","
+            + transaction.reversed() + "," + transaction.senderId() + "," + transaction.receiverId();
+    }
+
+    static TransactionSummaryDTO fromCsv(String line) {
+        String[] fields = line.split(",", -1);
+        return new TransactionSummaryDTO(UUID.fromString(fields[0]), Money.parse(fields[2]),
+            LocalDateTime.parse(fields[1]), Boolean.parseBoolean(fields[3]),
+            UUID.fromString(fields[4]), UUID.fromString(fields[5]));
+    }
+}
@@ -0,0 +1,368 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.BatchItemStatus;
+import com.picpaybackend.domain.transaction.BatchMode;
+import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.BatchItemResultDTO;
+import com.picpaybackend.dtos.BatchReversalDTO;
+import com.picpaybackend.dtos.BatchTransactionDTO;
+import com.picpaybackend.dtos.BatchTransactionResultDTO;
+import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.repositories.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Service
+public class TransactionBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBatchService.class);
+
+    private final UserService userService;
+    private final TransactionRepository repository;
+    private final AuthorizationService authorizationService;
+    private final NotificationService notificationService;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final int authorizationParallelism;
+
+    @Autowired
+    public TransactionBatchService(UserService userService, TransactionRepository repository,
+                                   AuthorizationService authorizationService, NotificationService notificationService,
+                                   LedgerService ledgerService, TransactionTemplate transactionTemplate,
+                                   @Value("${transaction.batch.max-size:1000}") int maxBatchSize,
+                                   @Value("${transaction.batch.authorization-parallelism:4}") int authorizationParallelism) {
+        this.userService = userService;
+        this.repository = repository;
+        this.authorizationService = authorizationService;
+        this.notificationService = notificationService;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.authorizationParallelism = Math.max(1, authorizationParallelism);
+    }
+
+    // Sem @Transactional: validação e autorização acontecem antes de abrir a transação, para que
+    // nenhuma conexão do pool nem lock de remetente fique preso esperando o autorizador remoto.
+    public BatchTransactionResultDTO createTransactions(BatchTransactionDTO batch) {
+        List<TransactionDTO> items = batch.transactions();
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lote de transações vazio");
+        }
+        if (items.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lote excede o limite de " + maxBatchSize + " transações");
+        }
+        BatchMode mode = batch.mode() == null ? BatchMode.ALL_OR_NOTHING : batch.mode();
+        logger.info("Iniciando lote de {} transações no modo {}", items.size(), mode);
+
+        String[] errors = new String[items.size()];
+        Transaction[] created = new Transaction[items.size()];
+
+        for (int i = 0; i < items.size(); i++) {
+            TransactionDTO item = items.get(i);
+            if (item == null || item.value() == null || !item.value().isPositive()
+                || item.senderId() == null || item.receiverId() == null || item.senderId().equals(item.receiverId())) {
+                errors[i] = "Transação inválida";
+            }
+        }
+        if (shouldAbort(mode, errors)) {
+            return result(mode, errors, created, false);
+        }
+
+        authorizeSenders(items, errors);
+        if (shouldAbort(mode, errors)) {
+            return result(mode, errors, created, false);
+        }
+
+        return transactionTemplate.execute(status -> applyTransactions(items, mode, errors, created));
+    }
+
+    private BatchTransactionResultDTO applyTransactions(List<TransactionDTO> items, BatchMode mode, String[] errors, Transaction[] created) {
+        // Só os remetentes são travados; destinatários recebem lançamentos de crédito sem lock
+        Set<UUID> senderIds = new HashSet<>();
+        Set<UUID> receiverIds = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] == null) {
+                senderIds.add(items.get(i).senderId());
+                receiverIds.add(items.get(i).receiverId());
+            }
+        }
+        receiverIds.removeAll(senderIds);
+        Map<UUID, User> users = new HashMap<>(userService.lockExistingUsers(senderIds));
+        if (!receiverIds.isEmpty()) {
+            users.putAll(userService.findExistingUsers(receiverIds));
+        }
+
+        // Os saldos (transientes) são atualizados item a item, na ordem do lote, para que
+        // validateTransaction enxergue o saldo corrente (ex.: A->B seguido de B->C no mesmo lote).
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            TransactionDTO item = items.get(i);
+            User sender = users.get(item.senderId());
+            User receiver = users.get(item.receiverId());
+            if (sender == null || receiver == null) {
+                errors[i] = "Usuário não encontrado com o ID: " + (sender == null ? item.senderId() : item.receiverId());
+                continue;
+            }
+            try {
+                userService.validateTransaction(sender, item.value());
+            } catch (Exception e) {
+                errors[i] = e.getMessage();
+                continue;
+            }
+
+            sender.setBalance(sender.getBalance().minus(item.value()));
+            receiver.setBalance(receiver.getBalance().plus(item.value()));
+
+            Transaction transaction = new Transaction();
+            transaction.setAmount(item.value());
+            transaction.setSender(sender);
+            transaction.setReceiver(receiver);
+            transaction.setTimestamp(LocalDateTime.now());
+            created[i] = transaction;
+        }
+
+        if (shouldAbort(mode, errors)) {
+            // Nada foi gravado ainda: basta não persistir as transações
+            return result(mode, errors, created, false);
+        }
+
+        List<Transaction> transactions = new ArrayList<>();
+        for (Transaction transaction : created) {
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        }
+        repository.saveAll(transactions);
+        ledgerService.recordTransfers(transactions);
+        // Mesma granularidade da autorização: um registro por remetente, com o total aplicado
+        Map<UUID, Money> released = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            released.merge(transaction.getSender().getId(), transaction.getAmount(), Money::plus);
+        }
+        released.forEach(authorizationService::recordReleased);
+        for (Transaction transaction : transactions) {
+            notificationService.enqueueNotification(transaction.getSender(), "Transação concluída com sucesso");
+            notificationService.enqueueNotification(transaction.getReceiver(), "Transação concluída com sucesso");
+        }
+
+        logger.info("Lote concluído: {} transações aplicadas, {} recusadas", transactions.size(), items.size() - transactions.size());
+        return result(mode, errors, created, true);
+    }
+
+    // Estorno em lote (ex.: lojista devolvendo as vendas do dia) numa única transação de banco:
+    // as transações originais são travadas numa consulta só, em ordem de id, e depois as contas
+    // debitadas (os destinatários originais), na ordem canônica do lockExistingUsers. Quem
+    // reverte nunca trava transação depois de conta, então não há ciclo com o estorno unitário.
+    @Transactional
+    public BatchTransactionResultDTO revertTransactions(BatchReversalDTO batch) {
+        List<UUID> ids = batch.transactionIds();
+        if (ids == null || ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lote de reversões vazio");
+        }
+        if (ids.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lote excede o limite de " + maxBatchSize + " reversões");
+        }
+        BatchMode mode = batch.mode() == null ? BatchMode.ALL_OR_NOTHING : batch.mode();
+        logger.info("Iniciando lote de {} reversões no modo {}", ids.size(), mode);
+
+        String[] errors = new String[ids.size()];
+        Transaction[] created = new Transaction[ids.size()];
+
+        Set<UUID> distinct = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                errors[i] = "Transação inválida";
+            } else if (!distinct.add(ids.get(i))) {
+                errors[i] = "Transação repetida no lote";
+            }
+        }
+
+        Map<UUID, Transaction> originals = new HashMap<>();
+        if (!distinct.isEmpty()) {
+            for (Transaction transaction : repository.findAllByIdForUpdate(distinct)) {
+                originals.put(transaction.getId(), transaction);
+            }
+        }
+
+        Set<UUID> debitedIds = new HashSet<>();
+        Set<UUID> creditedIds = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            Transaction original = originals.get(ids.get(i));
+            if (original == null) {
+                errors[i] = "Transação não encontrado com o ID: " + ids.get(i);
+            } else if (original.isReversed()) {
+                errors[i] = "Esta transação já foi revertida.";
+            } else if (original.getSender() == null || original.getReceiver() == null
+                || original.getAmount() == null || !original.getAmount().isPositive()) {
+                errors[i] = "Transação inválida para reversão";
+            } else {
+                debitedIds.add(original.getReceiver().getId());
+                creditedIds.add(original.getSender().getId());
+            }
+        }
+        if (shouldAbort(mode, errors)) {
+            return result(mode, errors, created, false);
+        }
+
+        creditedIds.removeAll(debitedIds);
+        Map<UUID, User> users = new HashMap<>(userService.lockExistingUsers(debitedIds));
+        if (!creditedIds.isEmpty()) {
+            users.putAll(userService.findExistingUsers(creditedIds));
+        }
+
+        // Saldos transientes atualizados na ordem do lote, como no createTransactions
+        for (int i = 0; i < ids.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            Transaction original = originals.get(ids.get(i));
+            Money amount = original.getAmount();
+            User receiver = users.get(original.getReceiver().getId());
+            User sender = users.get(original.getSender().getId());
+            if (receiver.getBalance().isLessThan(amount)) {
+                errors[i] = "O destinatário não tem saldo suficiente para devolver o valor";
+                continue;
+            }
+
+            receiver.setBalance(receiver.getBalance().minus(amount));
+            sender.setBalance(sender.getBalance().plus(amount));
+
+            Transaction reversal = new Transaction();
+            reversal.setSender(receiver);
+            reversal.setReceiver(sender);
+            reversal.setAmount(amount);
+            reversal.setTimestamp(LocalDateTime.now());
+            reversal.setReversed(true);
+            created[i] = reversal;
+        }
+
+        if (shouldAbort(mode, errors)) {
+            // Nenhuma original foi marcada ainda: o dirty checking não tem o que gravar
+            return result(mode, errors, created, false);
+        }
+
+        List<Transaction> reversals = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (created[i] != null) {
+                originals.get(ids.get(i)).setReversed(true);
+                reversals.add(created[i]);
+            }
+        }
+        repository.saveAll(reversals);
+        ledgerService.recordTransfers(reversals);
+        for (Transaction reversal : reversals) {
+            notificationService.enqueueNotification(reversal.getReceiver(), "Sua transação foi revertida com sucesso.");
+            notificationService.enqueueNotification(reversal.getSender(), "A transação foi revertida, o valor foi devolvido.");
+        }
+
+        logger.info("Lote de reversões concluído: {} aplicadas, {} recusadas", reversals.size(), ids.size() - reversals.size());
+        return result(mode, errors, created, true);
+    }
+
+    // Uma chamada ao autorizador por remetente, com o total do lote, antes de qualquer lock:
+    // uma folha de pagamento com milhares de itens paga um único round trip. As chamadas saem em
+    // paralelo, até authorization-parallelism por vez, para não esgotar sozinhas o limite local do
+    // autorizador. Lojistas e remetentes inexistentes são recusados antes, pelo cache de perfis.
+    private void authorizeSenders(List<TransactionDTO> items, String[] errors) {
+        Map<UUID, Money> totals = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] == null) {
+                totals.merge(items.get(i).senderId(), items.get(i).value(), Money::plus);
+            }
+        }
+
+        Map<UUID, String> denied = new HashMap<>();
+        List<UUID> senders = new ArrayList<>();
+        for (UUID senderId : totals.keySet()) {
+            try {
+                userService.validateSender(senderId);
+                senders.add(senderId);
+            } catch (Exception e) {
+                denied.put(senderId, e.getMessage());
+            }
+        }
+
+        for (int start = 0; start < senders.size(); start += authorizationParallelism) {
+            List<UUID> window = senders.subList(start, Math.min(start + authorizationParallelism, senders.size()));
+            Map<UUID, CompletableFuture<Void>> authorizations = new LinkedHashMap<>();
+            for (UUID senderId : window) {
+                authorizations.put(senderId, authorizationService.authorizeAsync(senderId, totals.get(senderId)));
+            }
+            authorizations.forEach((senderId, authorization) -> {
+                try {
+                    authorization.join();
+                } catch (CompletionException e) {
+                    denied.put(senderId, authorizationError(e.getCause()));
+                }
+            });
+        }
+
+        for (int i = 0; i < items.size(); i++) {
+            if (errors[i] == null && denied.containsKey(items.get(i).senderId())) {
+                errors[i] = denied.get(items.get(i).senderId());
+            }
+        }
+    }
+
+    private static String authorizationError(Throwable cause) {
+        if (cause instanceof HttpClientErrorException) {
+            return "Transação não autorizada";
+        }
+        if (cause instanceof HttpServerErrorException) {
+            return "Erro inesperado ao autorizar transação";
+        }
+        return cause.getMessage();
+    }
+
+    private static boolean shouldAbort(BatchMode mode, String[] errors) {
+        if (mode != BatchMode.ALL_OR_NOTHING) {
+            return false;
+        }
+        for (String error : errors) {
+            if (error != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BatchTransactionResultDTO result(BatchMode mode, String[] errors, Transaction[] created, boolean committed) {
+        List<BatchItemResultDTO> results = new ArrayList<>(errors.length);
+        int applied = 0;
+        int rejected = 0;
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                rejected++;
+                results.add(new BatchItemResultDTO(i, BatchItemStatus.REJECTED, null, errors[i]));
+            } else if (committed && created[i] != null) {
+                applied++;
+                results.add(new BatchItemResultDTO(i, BatchItemStatus.APPLIED, created[i].getId(), null));
+            } else {
+                results.add(new BatchItemResultDTO(i, BatchItemStatus.ABORTED, null, null));
+            }
+        }
+        return new BatchTransactionResultDTO(mode, applied, rejected, results);
+    }
+}
@@ -0,0 +1,217 @@
+package com.picpaybackend.services;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// transactions particionada por mês de timestamp (só no Postgres; em outros bancos não faz nada).
+// Partições são criadas com meses de antecedência; as que saem da janela quente são desanexadas,
+// gravadas no arquivo (TransactionArchiveService) e só então removidas.
+//
+// Não há partição DEFAULT de propósito: com ela o Postgres não faz o Append ordenado por partição,
+// e a listagem mais recente primeiro com LIMIT deixaria de parar nas partições mais novas. Em
+// troca, o mês anterior também é criado: uma linha com timestamp de antes da virada do mês
+// (relógio adiantado, replicação atrasada do engine) ainda tem onde entrar logo depois dela.
+//
+// Busca só por id (reversão, GET /transactions/{id}) não tem a chave de particionamento e
+// consulta o índice de cada partição anexada, até hot-months índices por busca.
+@Service
+public class TransactionPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionPartitionService.class);
+    private static final Pattern PARTITION = Pattern.compile("transactions_p(\\d{4})_(\\d{2})");
+    private static final String LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('transactions-partitions'))";
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionArchiveService archiveService;
+    private final int monthsAhead;
+    private final int hotMonths;
+    private volatile boolean partitioned;
+
+    // EntityManagerFactory só para garantir que o Hibernate já criou o schema
+    @Autowired
+    public TransactionPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       TransactionArchiveService archiveService, EntityManagerFactory entityManagerFactory,
+                                       @Value("${transactions.partitions.months-ahead:3}") int monthsAhead,
+                                       @Value("${transactions.partitions.hot-months:12}") int hotMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveService = archiveService;
+        this.monthsAhead = monthsAhead;
+        this.hotMonths = hotMonths;
+    }
+
+    // Antes do servidor web subir. A tabela criada pelo Hibernate é trocada por uma particionada
+    // com as mesmas colunas, índices e chaves estrangeiras; a chave primária passa a ser
+    // (id, timestamp), porque no Postgres ela precisa conter a coluna de particionamento.
+    @PostConstruct
+    public void partitionTable() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            logger.info("Banco {} sem suporte ao particionamento de transações; tabela mantida como está", database);
+            return;
+        }
+        String kind = jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = to_regclass('transactions')", String.class);
+        if (!"p".equals(kind)) {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM transactions)", Boolean.class))) {
+                logger.warn("Tabela transactions já tem dados e não é particionada; a migração precisa ser feita manualmente");
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> convert());
+            logger.info("Tabela transactions convertida para particionamento mensal por timestamp");
+        }
+        partitioned = true;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (tryLock()) {
+                createPartitions(YearMonth.now());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${transactions.partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!partitioned) {
+            return;
+        }
+        YearMonth now = YearMonth.now();
+        YearMonth oldestHot = now.minusMonths(hotMonths - 1L);
+        // O DETACH trava a tabela pai: fica numa transação curta, separada da exportação
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!tryLock()) {
+                return;
+            }
+            createPartitions(now);
+            for (String partition : attachedPartitions()) {
+                if (month(partition).isBefore(oldestHot)) {
+                    jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+                    logger.info("Partição {} desanexada para arquivamento", partition);
+                }
+            }
+        });
+
+        // Desanexadas e ainda não removidas, inclusive as que ficaram de uma execução interrompida
+        for (String partition : detachedPartitions()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (tryLock()) {
+                    archive(partition);
+                }
+            });
+        }
+    }
+
+    private void convert() {
+        List<String> indexes = jdbcTemplate.queryForList("SELECT indexdef FROM pg_indexes WHERE schemaname = current_schema() "
+            + "AND tablename = 'transactions' AND indexname <> 'transactions_pkey'", String.class);
+        List<String> foreignKeys = jdbcTemplate.query("SELECT conname, pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = 'transactions'::regclass AND contype = 'f'",
+            (row, i) -> "ALTER TABLE transactions ADD CONSTRAINT " + row.getString(1) + " " + row.getString(2));
+
+        jdbcTemplate.execute("ALTER TABLE transactions RENAME TO transactions_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE transactions (LIKE transactions_unpartitioned INCLUDING DEFAULTS) "
+            + "PARTITION BY RANGE (\"timestamp\")");
+        jdbcTemplate.execute("DROP TABLE transactions_unpartitioned");
+        jdbcTemplate.execute("ALTER TABLE transactions ADD PRIMARY KEY (id, \"timestamp\")");
+        indexes.forEach(jdbcTemplate::execute);
+        foreignKeys.forEach(jdbcTemplate::execute);
+    }
+
+    private void createPartitions(YearMonth now) {
+        // Sem o mês anterior se ele já está fora da janela quente: seria desanexado em seguida
+        int monthsBehind = hotMonths > 1 ? 1 : 0;
+        for (int i = -monthsBehind; i <= monthsAhead; i++) {
+            YearMonth month = now.plusMonths(i);
+            LocalDate start = month.atDay(1);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name(month) + " PARTITION OF transactions "
+                + "FOR VALUES FROM ('" + start + "') TO ('" + start.plusMonths(1) + "')");
+        }
+    }
+
+    private void archive(String partition) {
+        YearMonth month = month(partition);
+        if (!archiveService.isArchived(month)) {
+            long expected = jdbcTemplate.queryForObject("SELECT count(*) FROM " + partition, Long.class);
+            long written;
+            try {
+                written = archiveService.archive(month, consumer -> jdbcTemplate.query(connection -> {
+                    var statement = connection.prepareStatement("SELECT id, amount, \"timestamp\", reversed, sender_id, receiver_id FROM "
+                        + partition + " ORDER BY \"timestamp\", id");
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, row -> {
+                    consumer.accept(new TransactionSummaryDTO(row.getObject("id", UUID.class), Money.ofMinor(row.getLong("amount")),
+                        row.getTimestamp("timestamp").toLocalDateTime(), row.getBoolean("reversed"),
+                        row.getObject("sender_id", UUID.class), row.getObject("receiver_id", UUID.class)));
+                }));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (written != expected) {
+                throw new IllegalStateException("Arquivo de " + month + " com " + written + " linhas, esperadas " + expected);
+            }
+        }
+        jdbcTemplate.execute("DROP TABLE " + partition);
+        logger.info("Partição {} arquivada e removida", partition);
+    }
+
+    private boolean tryLock() {
+        // Outra instância já está cuidando da manutenção
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK, Boolean.class));
+    }
+
+    private List<String> attachedPartitions() {
+        return partitionNames(jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = 'transactions'::regclass", String.class));
+    }
+
+    private List<String> detachedPartitions() {
+        return partitionNames(jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_class c "
+            + "WHERE c.relkind = 'r' AND c.relnamespace = current_schema()::regnamespace AND c.relname LIKE 'transactions\\_p%' "
+            + "AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid)", String.class));
+    }
+
+    private static List<String> partitionNames(List<String> tables) {
+        List<String> partitions = new ArrayList<>();
+        for (String table : tables) {
+            if (PARTITION.matcher(table).matches()) {
+                partitions.add(table);
+            }
+        }
+        partitions.sort(null);
+        return partitions;
+    }
+
+    static String name(YearMonth month) {
+        return String.format("transactions_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    static YearMonth month(String partition) {
+        Matcher matcher = PARTITION.matcher(partition);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Partição inválida: " + partition);
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+}
@@ -1,124 +1,177 @@
 package com.picpaybackend.services;
 
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.transaction.TransactionDirection;
 import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.CursorPageDTO;
 import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
 import com.picpaybackend.repositories.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestTemplate;
-import java.math.BigDecimal;
-import java.nio.charset.StandardCharsets;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionService {
     private final UserService userService;
     private final TransactionRepository repository;
-    private final RestTemplate restTemplate;
+    private final AuthorizationService authorizationService;
     private final NotificationService notificationService;
-    private static final int MAX_RETRIES = 3;
-    private static final int BACKOFF_TIME_MS = 2000;
+    private final LedgerService ledgerService;
+    private final MeterRegistry meterRegistry;
     private static final Logger logger = LoggerFactory.getLogger(TransactionService.class);
 
+    // Limites usados quando o período não é informado, para que todas as páginas usem a mesma consulta
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final UUID MIN_ID = new UUID(0, 0);
+    // Mesma ordem do banco (timestamp, id) decrescente; uuid é comparado byte a byte, sem sinal
+    private static final Comparator<TransactionSummaryDTO> NEWEST_FIRST = Comparator
+        .comparing(TransactionSummaryDTO::timestamp)
+        .thenComparing(TransactionSummaryDTO::id, (a, b) -> {
+            int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        })
+        .reversed();
+
     @Autowired
-    public TransactionService(UserService userService, TransactionRepository repository, RestTemplate restTemplate, NotificationService notificationService) {
+    public TransactionService(UserService userService, TransactionRepository repository, AuthorizationService authorizationService,
+                              NotificationService notificationService, LedgerService ledgerService, MeterRegistry meterRegistry) {
         this.userService = userService;
         this.repository = repository;
-        this.restTemplate = restTemplate;
+        this.authorizationService = authorizationService;
         this.notificationService = notificationService;
+        this.ledgerService = ledgerService;
+        this.meterRegistry = meterRegistry;
     }
 
     @Transactional
     public Transaction createTransaction(TransactionDTO transactionDTO) throws Exception {
         logger.info("Iniciando criação da transação. Remetente: {}, Destinatário: {}, Valor: {}",
             transactionDTO.senderId(), transactionDTO.receiverId(), transactionDTO.value());
-
-        User sender = this.userService.findUserById(transactionDTO.senderId());
-        User receiver = this.userService.findUserById(transactionDTO.receiverId());
-
-        userService.validateTransaction(sender, transactionDTO.value());
-
-        this.authorizeTransaction(sender, transactionDTO.value());
-
-        Transaction transaction = new Transaction();
-        transaction.setAmount(transactionDTO.value());
-        transaction.setSender(sender);
-        transaction.setReceiver(receiver);
-        transaction.setTimestamp(LocalDateTime.now());
-
-        sender.setBalance(sender.getBalance().subtract(transactionDTO.value()));
-        receiver.setBalance(receiver.getBalance().add(transactionDTO.value()));
-
-        repository.save(transaction);
-        logger.info("Transação salva com sucesso. ID da transação: {}, Valor: {}", transaction.getId(), transactionDTO.value());
-
-        try {
-            notificationService.sendNotification(sender, "Transação concluída com sucesso");
-            notificationService.sendNotification(receiver, "Transação concluída com sucesso");
-        } catch (Exception e) {
-            logger.warn("Falha ao enviar notificação para usuários da transação ID: {}", transaction.getId());
+        // Mesma regra do lote: transferência para si mesmo não movimenta nada e é recusada
+        if (Objects.equals(transactionDTO.senderId(), transactionDTO.receiverId())) {
+            logger.warn("Tentativa de transferência para a própria conta. Usuário: {}", transactionDTO.senderId());
+            throw new Exception("Transação inválida");
         }
 
-        return transaction;
+        try (StageTimer stages = new StageTimer(meterRegistry, "create")) {
+            // Lojista é recusado pelo cache sem tocar no banco, e a chamada ao autorizador acontece
+            // antes do lock: as contas ficam travadas só pelo tempo da atualização dos saldos.
+            stages.start("sender-check");
+            userService.validateSender(transactionDTO.senderId());
+            stages.start("authorize");
+            authorizationService.authorize(transactionDTO.senderId(), transactionDTO.value());
+
+            // Só a conta debitada é travada: o crédito é um lançamento novo no ledger e não disputa
+            // a linha do destinatário, por mais transferências que um lojista receba ao mesmo tempo.
+            stages.start("lock");
+            User sender = this.userService.lockUsers(List.of(transactionDTO.senderId())).get(transactionDTO.senderId());
+            User receiver = this.userService.findUserById(transactionDTO.receiverId());
+
+            stages.start("validate");
+            userService.validateTransaction(sender, transactionDTO.value());
+
+            stages.start("save");
+            Transaction transaction = new Transaction();
+            transaction.setAmount(transactionDTO.value());
+            transaction.setSender(sender);
+            transaction.setReceiver(receiver);
+            transaction.setTimestamp(LocalDateTime.now());
+
+            repository.save(transaction);
+            ledgerService.recordTransfer(transaction);
+            authorizationService.recordReleased(sender.getId(), transactionDTO.value());
+            logger.info("Transação salva com sucesso. ID da transação: {}, Valor: {}", transaction.getId(), transactionDTO.value());
+
+            sender.setBalance(sender.getBalance().minus(transactionDTO.value()));
+            receiver.setBalance(receiver.getBalance().plus(transactionDTO.value()));
+
+            stages.start("notify");
+            notificationService.enqueueNotification(sender, "Transação concluída com sucesso");
+            notificationService.enqueueNotification(receiver, "Transação concluída com sucesso");
+            stages.finish();
+
+            return transaction;
+        }
     }
 
     @Transactional
-    public void revertTransaction(Transaction transactionId) throws Exception {
-        Transaction originalTransaction= findTransactionsById(transactionId.getId());
-
-        if (originalTransaction.isReversed()) {
-            throw new Exception("Esta transação já foi revertida.");
-        }
-
-        User sender = originalTransaction.getSender();
-        User receiver = originalTransaction.getReceiver();
-        BigDecimal amount = originalTransaction.getAmount();
-
-        if (sender == null || receiver == null || amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new Exception("Transação inválida para reversão");
-        }
+    public void revertTransaction(UUID id) throws Exception {
+        try (StageTimer stages = new StageTimer(meterRegistry, "revert")) {
+            // Uma única leitura, já com lock: a checagem de isReversed abaixo não corre contra
+            // outra reversão da mesma transação.
+            stages.start("lookup");
+            Transaction originalTransaction = repository.findByIdForUpdate(id)
+                .orElseThrow(() -> new EntityNotFoundException("Transação não encontrado com o ID: " + id));
 
-        if (receiver.getBalance().compareTo(amount) < 0) {
-            throw new Exception("O destinatário não tem saldo suficiente para devolver o valor");
-        }
+            if (originalTransaction.isReversed()) {
+                throw new Exception("Esta transação já foi revertida.");
+            }
 
-        receiver.setBalance(receiver.getBalance().subtract(amount));
-        sender.setBalance(sender.getBalance().add(amount));
+            Money amount = originalTransaction.getAmount();
 
-        originalTransaction.setReversed(true);
-        repository.save(originalTransaction);
+            if (originalTransaction.getSender() == null || originalTransaction.getReceiver() == null || amount == null || !amount.isPositive()) {
+                throw new Exception("Transação inválida para reversão");
+            }
 
-        Transaction reversalTransaction = new Transaction();
-        reversalTransaction.setSender(receiver);
-        reversalTransaction.setReceiver(sender);
-        reversalTransaction.setAmount(amount);
-        reversalTransaction.setTimestamp(LocalDateTime.now());
-        reversalTransaction.setReversed(true);
-        repository.save(reversalTransaction);
+            // A reversão debita o destinatário original: é a conta dele que precisa de lock
+            stages.start("lock");
+            UUID senderId = originalTransaction.getSender().getId();
+            UUID receiverId = originalTransaction.getReceiver().getId();
+            User receiver = this.userService.lockUsers(List.of(receiverId)).get(receiverId);
+            User sender = senderId.equals(receiverId) ? receiver : this.userService.findUserById(senderId);
 
-        logger.info("Transação de reversão criada. ID da transação original: {}, ID da reversão: {}",
-            originalTransaction.getId(), reversalTransaction.getId());
+            stages.start("validate");
+            if (receiver.getBalance().isLessThan(amount)) {
+                throw new Exception("O destinatário não tem saldo suficiente para devolver o valor");
+            }
 
-        try {
-            notificationService.sendNotification(sender, "Sua transação foi revertida com sucesso.");
-            notificationService.sendNotification(receiver, "A transação foi revertida, o valor foi devolvido.");
-        } catch (Exception e) {
-            logger.warn("Falha ao enviar notificação para os usuários.");
+            stages.start("save");
+            originalTransaction.setReversed(true);
+            repository.save(originalTransaction);
+
+            Transaction reversalTransaction = new Transaction();
+            reversalTransaction.setSender(receiver);
+            reversalTransaction.setReceiver(sender);
+            reversalTransaction.setAmount(amount);
+            reversalTransaction.setTimestamp(LocalDateTime.now());
+            reversalTransaction.setReversed(true);
+            repository.save(reversalTransaction);
+            ledgerService.recordTransfer(reversalTransaction);
+
+            receiver.setBalance(receiver.getBalance().minus(amount));
+            sender.setBalance(sender.getBalance().plus(amount));
+
+            logger.info("Transação de reversão criada. ID da transação original: {}, ID da reversão: {}",
+                originalTransaction.getId(), reversalTransaction.getId());
+
+            stages.start("notify");
+            notificationService.enqueueNotification(sender, "Sua transação foi revertida com sucesso.");
+            notificationService.enqueueNotification(receiver, "A transação foi revertida, o valor foi devolvido.");
+            stages.finish();
         }
     }
 
+    @Transactional(readOnly = true)
     public Transaction findTransactionsById(final UUID id) {
         try {
             return repository.findTransactionsById(id)
@@ -129,66 +182,104 @@ public class TransactionService {
         }
     }
 
-    public List<Transaction> getAllTransactions() {
-        logger.info("Buscando todas transações cadastradas.");
-        return repository.findAll();
+    @Transactional(readOnly = true)
+    public TransactionSummaryDTO getTransactionSummary(final UUID id, boolean includeParties) {
+        Optional<TransactionSummaryDTO> summary = includeParties
+            ? repository.findSummaryWithPartiesById(id)
+            : repository.findSummaryById(id);
+        return summary.orElseThrow(() -> new EntityNotFoundException("Transação não encontrado com o ID: " + id));
     }
 
-    public void authorizeTransaction(User sender, BigDecimal value) throws HttpClientErrorException, HttpServerErrorException {
-        int attempt = 0;
-
-        while (attempt < MAX_RETRIES) {
-            try {
-                logger.info("Tentativa {}/{} de autorização da transação para o usuário {}.", attempt + 1, MAX_RETRIES, sender.getId());
-
-                ResponseEntity<Map> authorizationResponse = restTemplate.getForEntity("https://util.devi.tools/api/v2/authorize", Map.class);
-
-                if (authorizationResponse.getStatusCode().is5xxServerError()) {
-                    logger.error("Erro 5xx ao autorizar transação. Tentativa {}/{}. Usuário: {}", attempt + 1, MAX_RETRIES, sender.getId());
-                    throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR, "Erro inesperado ao autorizar transação",
-                        "{\"error\": \"Erro inesperado ao autorizar transação\"}".getBytes(), StandardCharsets.UTF_8);
-                }
-
-                Map<String, Object> body = authorizationResponse.getBody();
-
-                if (body == null || !body.containsKey("data") || !"success".equals(body.get("status"))) {
-                    logger.warn("Transação não autorizada pelo serviço externo. Tentativa {}/{}. Usuário: {}", attempt + 1, MAX_RETRIES, sender.getId());
-                    throw new HttpClientErrorException(HttpStatus.FORBIDDEN,
-                        "Transação não autorizada",
-                        "{\"message\": \"Transação não autorizada\"}".getBytes(),
-                        StandardCharsets.UTF_8);
-                }
-
-                Map<String, Object> data = (Map<String, Object>) body.get("data");
-
-                if (!data.containsKey("authorization") || !Boolean.TRUE.equals(data.get("authorization"))) {
-                    logger.warn("Transação rejeitada pelo serviço externo. Tentativa {}/{}. Usuário: {}", attempt + 1, MAX_RETRIES, sender.getId());
-                    throw new HttpClientErrorException(HttpStatus.FORBIDDEN,
-                        "Transação não autorizada",
-                        "{\"message\": \"Transação não autorizada\"}".getBytes(),
-                        StandardCharsets.UTF_8);
-                }
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TransactionSummaryDTO> getTransactionsPage(String cursor, int size, boolean includeParties) {
+        int limit = PageCursors.clampSize(size);
+        List<TransactionSummaryDTO> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = includeParties
+                ? repository.findSummaryWithPartiesFirstPage(Limit.of(limit + 1))
+                : repository.findSummaryFirstPage(Limit.of(limit + 1));
+        } else {
+            Position before = PageCursors.decode(cursor, 2, values -> new Position(LocalDateTime.parse(values[0]), UUID.fromString(values[1])));
+            rows = includeParties
+                ? repository.findSummaryWithPartiesPageBefore(before.timestamp(), before.id(), Limit.of(limit + 1))
+                : repository.findSummaryPageBefore(before.timestamp(), before.id(), Limit.of(limit + 1));
+        }
 
-                logger.info("Transação autorizada com sucesso para o usuário {}", sender.getId());
-                return;
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<TransactionSummaryDTO> items = rows.subList(0, limit);
+        TransactionSummaryDTO last = items.get(limit - 1);
+        return new CursorPageDTO<>(items, PageCursors.encode(last.timestamp().toString(), last.id().toString()));
+    }
 
-            } catch (HttpClientErrorException | HttpServerErrorException e) {
-                attempt++;
+    // Cada direção é um range scan no seu índice; ALL busca uma página de cada lado e intercala,
+    // em vez de um OR que não aproveitaria a ordem de nenhum dos dois índices. Transferência para
+    // si mesmo aparece nos dois lados e entra uma vez só.
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TransactionSummaryDTO> getUserTransactionsPage(final UUID userId, TransactionDirection direction,
+                                                                       LocalDateTime from, LocalDateTime to,
+                                                                       String cursor, int size) {
+        userService.getProfile(userId);
+        LocalDateTime start = from == null ? HISTORY_START : from;
+        LocalDateTime end = to == null ? HISTORY_END : to;
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Período inválido: início deve ser anterior ao fim");
+        }
 
-                if (attempt >= MAX_RETRIES) {
-                    logger.error("Todas as tentativas de autorização falharam para o usuário {}.", sender.getId(), e);
-                    throw e;
-                }
+        Position before = cursor == null || cursor.isBlank()
+            ? new Position(end, MIN_ID)
+            : PageCursors.decode(cursor, 2, values -> new Position(LocalDateTime.parse(values[0]), UUID.fromString(values[1])));
+
+        int limit = PageCursors.clampSize(size);
+        Limit fetch = Limit.of(limit + 1);
+        List<TransactionSummaryDTO> rows = switch (direction) {
+            case SENT -> repository.findSentPage(userId, start, before.timestamp(), before.id(), fetch);
+            case RECEIVED -> repository.findReceivedPage(userId, start, before.timestamp(), before.id(), fetch);
+            case ALL -> merge(repository.findSentPage(userId, start, before.timestamp(), before.id(), fetch),
+                repository.findReceivedPage(userId, start, before.timestamp(), before.id(), fetch), limit + 1);
+        };
+
+        if (rows.size() <= limit) {
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<TransactionSummaryDTO> items = rows.subList(0, limit);
+        TransactionSummaryDTO last = items.get(limit - 1);
+        return new CursorPageDTO<>(items, PageCursors.encode(last.timestamp().toString(), last.id().toString()));
+    }
 
-                logger.warn("Erro ao autorizar transação, tentativa {}/{}. Aguardando {}ms antes de tentar novamente.", attempt, MAX_RETRIES, BACKOFF_TIME_MS);
+    private record Position(LocalDateTime timestamp, UUID id) {
+    }
 
-                try {
-                    Thread.sleep(BACKOFF_TIME_MS);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    logger.error("Thread de espera interrompida durante a autorização da transação.", ie);
+    private static List<TransactionSummaryDTO> merge(List<TransactionSummaryDTO> sent, List<TransactionSummaryDTO> received, int limit) {
+        List<TransactionSummaryDTO> merged = new ArrayList<>(Math.min(limit, sent.size() + received.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < sent.size() || j < received.size())) {
+            if (j >= received.size()) {
+                merged.add(sent.get(i++));
+            } else if (i >= sent.size()) {
+                merged.add(received.get(j++));
+            } else {
+                int order = NEWEST_FIRST.compare(sent.get(i), received.get(j));
+                if (order == 0) {
+                    j++;
                 }
+                merged.add(order <= 0 ? sent.get(i++) : received.get(j++));
             }
         }
+        return merged;
+    }
+
+    // Percorre a tabela com um cursor JDBC (fetch size); como são projeções, nada fica preso ao
+    // contexto de persistência e a memória usada não cresce com o tamanho da tabela.
+    @Transactional(readOnly = true)
+    public void streamTransactions(boolean includeParties, Consumer<TransactionSummaryDTO> consumer) {
+        logger.info("Exportando todas as transações em streaming.");
+        try (Stream<TransactionSummaryDTO> transactions = includeParties
+            ? repository.streamSummariesWithParties()
+            : repository.streamSummaries()) {
+            transactions.forEach(consumer);
+        }
     }
 }
@@ -0,0 +1,471 @@
+package com.picpaybackend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.picpaybackend.domain.id.UuidV7Generator;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import com.picpaybackend.infra.AccountSnapshots;
+import com.picpaybackend.infra.AccountTable;
+import com.picpaybackend.infra.TransferEngineProperties;
+import com.picpaybackend.infra.TransferJournal;
+import com.picpaybackend.infra.TransferRing;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// Modo engine (transfer.engine.enabled=true): os saldos ficam em memória (AccountTable), sob uma
+// única thread escritora que consome a TransferRing em lotes. Cada transferência aplicada vai para
+// o TransferJournal, e o lote inteiro é confirmado com um único fsync antes de qualquer resposta
+// sair. Nenhuma transferência toca o banco no caminho da requisição: o JournalReplicator copia o
+// journal para transactions, ledger e outbox em segundo plano.
+//
+// A conta entra no engine na primeira transferência, com o saldo do ledger naquele momento (um
+// registro OPEN no journal). Na subida o estado é o último snapshot mais o journal daí em diante.
+// Supõe uma única instância da aplicação escrevendo: o journal é local.
+//
+// Uma transferência que passa do prazo de resposta continua na fila e pode ser aplicada depois:
+// o chamador recebe PendingTransferException com o id, consultável em unresolvedTransfer até
+// transfer.engine.pending-retention, em vez de um erro que o levaria a repetir a transferência.
+@Service
+@ConditionalOnProperty(prefix = "transfer.engine", name = "enabled", havingValue = "true")
+public class TransferEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransferEngine.class);
+    private static final int SPIN_LIMIT = 100;
+    private static final int YIELD_LIMIT = 200;
+    private static final long IDLE_PARK_NANOS = 100_000;
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    private enum CommandType { OPEN, TRANSFER, QUERY }
+
+    // Transferência aceita na fila cuja resposta não saiu no prazo
+    public static class PendingTransferException extends RuntimeException {
+        private final UUID transactionId;
+
+        public PendingTransferException(UUID transactionId) {
+            super("Transferência " + transactionId + " em processamento");
+            this.transactionId = transactionId;
+        }
+
+        public UUID getTransactionId() {
+            return transactionId;
+        }
+    }
+
+    private static final class Command {
+        final CommandType type;
+        final UUID transactionId;
+        final UUID senderId;
+        final UUID receiverId;
+        final long amount;
+        final LocalDateTime timestamp;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        // Preenchidos pela thread escritora e publicados só depois do fsync do lote
+        Object outcome;
+        Exception rejection;
+
+        Command(CommandType type, UUID transactionId, UUID senderId, UUID receiverId, long amount, LocalDateTime timestamp) {
+            this.type = type;
+            this.transactionId = transactionId;
+            this.senderId = senderId;
+            this.receiverId = receiverId;
+            this.amount = amount;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final UserService userService;
+    private final AuthorizationService authorizationService;
+    private final LedgerService ledgerService;
+    private final TransferEngineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Path directory;
+    private final TransferRing<Command> ring;
+    // Contas já abertas no engine, para o lado da requisição decidir se precisa mandar um OPEN
+    private final Set<UUID> knownAccounts = ConcurrentHashMap.newKeySet();
+    private final List<Command> pending = new ArrayList<>();
+    // Transferências que esgotaram o prazo, por id, até o resultado poder ser consultado no banco
+    private final Cache<UUID, Command> unresolved;
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transfer-engine-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AccountTable accounts;
+    private TransferJournal journal;
+    private Thread writer;
+    private Timer fsyncTimer;
+    private DistributionSummary batchSizes;
+    // Só a thread escritora altera
+    private long snapshotRequestedAt;
+    private volatile long durableSequence;
+    private volatile long replicatedSequence;
+    private volatile long snapshotSequence;
+    // Snapshot anterior ao mais recente: o journal precisa cobrir a partir dele, caso o último falhe na leitura
+    private volatile long retainedSnapshotSequence;
+    private volatile boolean running;
+    private volatile Throwable failure;
+
+    @Autowired
+    public TransferEngine(UserService userService, AuthorizationService authorizationService, LedgerService ledgerService,
+                          TransferEngineProperties properties, MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.authorizationService = authorizationService;
+        this.ledgerService = ledgerService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.directory = Paths.get(properties.directory());
+        this.ring = new TransferRing<>(properties.ringSize());
+        this.unresolved = Caffeine.newBuilder()
+            .expireAfterWrite(properties.pendingRetention())
+            .build();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        accounts = new AccountTable(properties.expectedAccounts());
+        Optional<AccountSnapshots.Snapshot> snapshot = AccountSnapshots.loadLatest(directory);
+        long fromSnapshot = 0;
+        if (snapshot.isPresent()) {
+            long[] saved = snapshot.get().accounts();
+            for (int i = 0; i < saved.length; i += 3) {
+                accounts.open(saved[i], saved[i + 1], saved[i + 2]);
+            }
+            fromSnapshot = snapshot.get().sequence();
+        }
+
+        journal = new TransferJournal(directory, properties.segmentSize());
+        long[] replayed = new long[1];
+        durableSequence = journal.recover(fromSnapshot, entry -> {
+            replay(entry);
+            replayed[0]++;
+        });
+        snapshotSequence = fromSnapshot;
+        // Pode haver um snapshot mais antigo no disco servindo de reserva: nada sai do journal até o próximo
+        retainedSnapshotSequence = 0;
+        snapshotRequestedAt = fromSnapshot;
+
+        long[] all = accounts.export();
+        for (int i = 0; i < all.length; i += 3) {
+            knownAccounts.add(new UUID(all[i], all[i + 1]));
+        }
+        logger.info("Engine de transferências recuperado: snapshot na sequência {}, {} registros do journal, {} contas",
+            fromSnapshot, replayed[0], accounts.size());
+
+        fsyncTimer = meterRegistry.timer("transfer.engine.fsync");
+        batchSizes = DistributionSummary.builder("transfer.engine.batch.size").register(meterRegistry);
+        Gauge.builder("transfer.engine.replication.lag", this, engine -> engine.durableSequence - engine.replicatedSequence)
+            .register(meterRegistry);
+        Gauge.builder("transfer.engine.ring.size", ring, TransferRing::size).register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "transfer-engine-writer");
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        running = false;
+        if (writer != null) {
+            writer.join(properties.timeout().toMillis());
+        }
+        snapshotExecutor.shutdown();
+        snapshotExecutor.awaitTermination(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        if (journal != null) {
+            journal.close();
+        }
+        logger.info("Engine de transferências parado na sequência {}", durableSequence);
+    }
+
+    public TransactionSummaryDTO transfer(TransactionDTO transactionDTO) throws Exception {
+        if (transactionDTO.value() == null || !transactionDTO.value().isPositive()
+            || transactionDTO.senderId() == null || transactionDTO.receiverId() == null
+            || transactionDTO.senderId().equals(transactionDTO.receiverId())) {
+            throw new Exception("Transação inválida");
+        }
+        logger.info("Iniciando transação no engine. Remetente: {}, Destinatário: {}, Valor: {}",
+            transactionDTO.senderId(), transactionDTO.receiverId(), transactionDTO.value());
+
+        userService.validateSender(transactionDTO.senderId());
+        userService.getProfile(transactionDTO.receiverId());
+        authorizationService.authorize(transactionDTO.senderId(), transactionDTO.value());
+
+        ensureOpen(transactionDTO.senderId());
+        ensureOpen(transactionDTO.receiverId());
+        // Precisão do timestamp do banco, para o que o engine responde ser igual ao que for replicado
+        Command command = new Command(CommandType.TRANSFER, UuidV7Generator.next(), transactionDTO.senderId(),
+            transactionDTO.receiverId(), transactionDTO.value().minorUnits(), LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        TransactionSummaryDTO summary = (TransactionSummaryDTO) submit(command);
+        authorizationService.recordReleased(transactionDTO.senderId(), transactionDTO.value());
+        return summary;
+    }
+
+    // Vazio quando o engine não guarda a transferência (nunca esgotou o prazo ou já saiu da retenção):
+    // o resultado está no banco. Ainda na fila, lança PendingTransferException; recusada, a recusa.
+    public Optional<TransactionSummaryDTO> unresolvedTransfer(UUID transactionId) throws Exception {
+        Command command = unresolved.getIfPresent(transactionId);
+        if (command == null) {
+            return Optional.empty();
+        }
+        if (!command.result.isDone()) {
+            throw new PendingTransferException(transactionId);
+        }
+        try {
+            return Optional.of((TransactionSummaryDTO) command.result.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Vazio quando a conta ainda não entrou no engine: o saldo do banco é o atual
+    @SuppressWarnings("unchecked")
+    public Optional<Money> balance(UUID accountId) throws Exception {
+        if (!knownAccounts.contains(accountId)) {
+            return Optional.empty();
+        }
+        return (Optional<Money>) submit(new Command(CommandType.QUERY, null, accountId, null, 0, null));
+    }
+
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    public int readJournal(long from, long to, int limit, Consumer<TransferJournal.Entry> consumer) throws IOException {
+        return journal.read(from, Math.min(to, durableSequence), limit, consumer);
+    }
+
+    // Chamado pelo replicador: segmentos já replicados e cobertos por snapshot podem sair do disco
+    public void markReplicated(long sequence) {
+        replicatedSequence = sequence;
+        pruneJournal();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void ensureOpen(UUID accountId) {
+        if (knownAccounts.contains(accountId)) {
+            return;
+        }
+        Money balance = ledgerService.currentBalance(accountId).orElse(Money.ZERO);
+        // Duas requisições podem abrir a mesma conta ao mesmo tempo; a escritora ignora a segunda.
+        // A conta só vira conhecida depois do OPEN entrar na fila, então nenhuma transferência que
+        // a considere aberta chega à escritora antes dele.
+        offer(new Command(CommandType.OPEN, null, accountId, null, balance.minorUnits(), null));
+        knownAccounts.add(accountId);
+    }
+
+    private Object submit(Command command) throws Exception {
+        offer(command);
+        try {
+            return command.result.get(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (command.type == CommandType.TRANSFER) {
+                unresolved.put(command.transactionId, command);
+                logger.warn("Prazo de {}ms esgotado aguardando a transação {} no engine; segue em processamento",
+                    properties.timeout().toMillis(), command.transactionId);
+                throw new PendingTransferException(command.transactionId);
+            }
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Tempo esgotado aguardando o engine de transferências");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void offer(Command command) {
+        if (!running || failure != null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Engine de transferências indisponível");
+        }
+        if (!ring.offer(command)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Engine de transferências sobrecarregado");
+        }
+    }
+
+    private void runWriter() {
+        int idle = 0;
+        try {
+            while (running || ring.size() > 0) {
+                int drained = ring.drain(this::apply, properties.maxBatch());
+                if (drained == 0) {
+                    idle = idle(idle);
+                    continue;
+                }
+                idle = 0;
+                commit(drained);
+            }
+        } catch (Throwable e) {
+            // Sem journal não há como confirmar nada: o engine para e tudo que está na fila falha
+            failure = e;
+            logger.error("Engine de transferências parado por falha na thread escritora", e);
+            ResponseStatusException unavailable = new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Engine de transferências indisponível");
+            pending.forEach(command -> command.result.completeExceptionally(unavailable));
+            pending.clear();
+            ring.drain(command -> command.result.completeExceptionally(unavailable), Integer.MAX_VALUE);
+        }
+    }
+
+    private static int idle(int idle) {
+        if (idle < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (idle < YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return idle + 1;
+    }
+
+    private void apply(Command command) {
+        switch (command.type) {
+            case OPEN -> {
+                if (accounts.open(command.senderId.getMostSignificantBits(), command.senderId.getLeastSignificantBits(), command.amount)) {
+                    append(TransferJournal.OPEN, null, command.senderId, null, command.amount, LocalDateTime.now());
+                }
+            }
+            case QUERY -> {
+                int position = accounts.find(command.senderId);
+                command.outcome = position < 0 ? Optional.empty() : Optional.of(Money.ofMinor(accounts.balance(position)));
+            }
+            case TRANSFER -> {
+                int from = accounts.find(command.senderId);
+                int to = accounts.find(command.receiverId);
+                if (from < 0 || to < 0) {
+                    command.rejection = new EntityNotFoundException("Usuário não encontrado com o ID: " + (from < 0 ? command.senderId : command.receiverId));
+                } else if (accounts.balance(from) < command.amount) {
+                    logger.warn("Tentativa de transação com saldo insuficiente. Usuário: {}, Saldo: {}, Valor: {}",
+                        command.senderId, Money.ofMinor(accounts.balance(from)), Money.ofMinor(command.amount));
+                    command.rejection = new Exception("Saldo insuficiente");
+                } else {
+                    accounts.add(from, -command.amount);
+                    accounts.add(to, command.amount);
+                    append(TransferJournal.TRANSFER, command.transactionId, command.senderId, command.receiverId, command.amount, command.timestamp);
+                    command.outcome = new TransactionSummaryDTO(command.transactionId, Money.ofMinor(command.amount), command.timestamp,
+                        false, command.senderId, command.receiverId);
+                }
+            }
+        }
+        pending.add(command);
+    }
+
+    private void append(byte type, UUID transactionId, UUID senderId, UUID receiverId, long amount, LocalDateTime timestamp) {
+        try {
+            journal.append(new TransferJournal.Entry(journal.lastSequence() + 1, type, transactionId, senderId, receiverId, amount, timestamp));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Um fsync por lote; só então respostas (inclusive recusas, que leram esse estado) são liberadas
+    private void commit(int drained) {
+        long last = journal.lastSequence();
+        if (last > durableSequence) {
+            long start = System.nanoTime();
+            journal.flush();
+            fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            durableSequence = last;
+        }
+        if (drained > 0) {
+            batchSizes.record(drained);
+        }
+        for (Command command : pending) {
+            if (command.rejection != null) {
+                command.result.completeExceptionally(command.rejection);
+            } else {
+                command.result.complete(command.outcome);
+            }
+        }
+        pending.clear();
+
+        if (last - snapshotRequestedAt >= properties.snapshotEvery() && snapshotting.compareAndSet(false, true)) {
+            snapshotRequestedAt = last;
+            long[] copy = accounts.export();
+            snapshotExecutor.execute(() -> writeSnapshot(last, copy));
+        }
+    }
+
+    private void writeSnapshot(long sequence, long[] copy) {
+        try {
+            AccountSnapshots.write(directory, sequence, copy);
+            AccountSnapshots.prune(directory, SNAPSHOTS_KEPT);
+            retainedSnapshotSequence = snapshotSequence;
+            snapshotSequence = sequence;
+            logger.info("Snapshot do engine gravado na sequência {} com {} contas", sequence, copy.length / 3);
+            pruneJournal();
+        } catch (IOException e) {
+            logger.error("Falha ao gravar snapshot do engine na sequência {}", sequence, e);
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    private void pruneJournal() {
+        try {
+            journal.prune(Math.min(retainedSnapshotSequence, replicatedSequence));
+        } catch (IOException e) {
+            logger.error("Falha ao remover segmentos antigos do journal", e);
+        }
+    }
+
+    // Registros já validados quando foram gravados: só reaplica
+    private void replay(TransferJournal.Entry entry) {
+        if (entry.type() == TransferJournal.OPEN) {
+            accounts.open(entry.senderId().getMostSignificantBits(), entry.senderId().getLeastSignificantBits(), entry.amount());
+            return;
+        }
+        int from = accounts.find(entry.senderId());
+        int to = accounts.find(entry.receiverId());
+        if (from < 0 || to < 0) {
+            throw new IllegalStateException("Registro " + entry.sequence() + " do journal referencia uma conta que não foi aberta");
+        }
+        accounts.add(from, -entry.amount());
+        accounts.add(to, entry.amount());
+    }
+}
@@ -0,0 +1,56 @@
+package com.picpaybackend.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.picpaybackend.domain.user.UserProfile;
+import com.picpaybackend.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+// Cache dos atributos que praticamente não mudam (tipo, e-mail, documento). Saldo nunca passa
+// por aqui: ele é sempre lido do banco sob lock. O Caffeine usa W-TinyLFU para decidir o que
+// despejar; o TTL limita a defasagem quando outra instância altera o usuário.
+@Service
+public class UserProfileCache {
+
+    private final LoadingCache<UUID, UserProfile> cache;
+
+    @Autowired
+    public UserProfileCache(UserRepository repository, MeterRegistry meterRegistry,
+                            @Value("${user-profile-cache.max-size:100000}") long maxSize,
+                            @Value("${user-profile-cache.ttl-ms:600000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build(id -> repository.findProfileById(id).orElse(null));
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userProfiles");
+    }
+
+    public Optional<UserProfile> get(UUID id) {
+        return Optional.ofNullable(cache.get(id));
+    }
+
+    // Invalida na hora e de novo após o commit: uma leitura concorrente antes do commit
+    // recarregaria o valor antigo.
+    public void invalidate(UUID id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+}
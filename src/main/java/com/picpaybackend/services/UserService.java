@@ -1,68 +1,210 @@
 package com.picpaybackend.services;
 
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.domain.user.User;
+import com.picpaybackend.domain.user.UserProfile;
 import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.dtos.CursorPageDTO;
 import com.picpaybackend.dtos.UserDTO;
+import com.picpaybackend.infra.AccountLockManager;
 import com.picpaybackend.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
 
     private final UserRepository repository;
+    private final AccountLockManager accountLockManager;
+    private final EntityManager entityManager;
+    private final UserProfileCache profileCache;
+    private final LedgerService ledgerService;
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     @Autowired
-    public UserService(UserRepository repository) {
+    public UserService(UserRepository repository, AccountLockManager accountLockManager, EntityManager entityManager,
+                       UserProfileCache profileCache, LedgerService ledgerService) {
         this.repository = repository;
+        this.accountLockManager = accountLockManager;
+        this.entityManager = entityManager;
+        this.profileCache = profileCache;
+        this.ledgerService = ledgerService;
     }
 
-    public void validateTransaction(User sender, BigDecimal amount) throws Exception {
+    // Verificação antecipada pelo cache, antes de qualquer lock ou chamada ao autorizador.
+    // validateTransaction continua sendo a checagem definitiva, sobre a linha travada.
+    public void validateSender(UUID senderId) throws Exception {
+        UserProfile profile = getProfile(senderId);
+        if (profile.userType() == UserType.MERCHANT || profile.userType() == null) {
+            logger.warn("Tentativa de transação não autorizada por um logista: {}", senderId);
+            throw new Exception("Logista não está autorizado a realizar transações");
+        }
+    }
+
+    public UserProfile getProfile(final UUID id) {
+        return profileCache.get(id)
+            .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com o ID: " + id));
+    }
+
+    public void validateTransaction(User sender, Money amount) throws Exception {
         if (sender.getUserType() == UserType.MERCHANT || sender.getUserType() == null) {
             logger.warn("Tentativa de transação não autorizada por um logista: {}", sender.getId());
             throw new Exception("Logista não está autorizado a realizar transações");
         }
-        if (sender.getBalance().compareTo(amount) < 0) {
+        if (sender.getBalance().isLessThan(amount)) {
             logger.warn("Tentativa de transação com saldo insuficiente. Usuário: {}, Saldo: {}, Valor: {}",
                 sender.getId(), sender.getBalance(), amount);
             throw new Exception("Saldo insuficiente");
         }
     }
 
+    @Transactional(readOnly = true)
     public User findUserById(final UUID id) {
         try {
-            return repository.findUserById(id)
+            User user = repository.findUserById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com o ID: " + id));
+            fillBalances(List.of(user));
+            return user;
         } catch (EntityNotFoundException e) {
             logger.error("Usuário não encontrado com o ID: {}", id, e);
             throw e;
         }
     }
 
+    public Map<UUID, User> lockUsers(final Collection<UUID> ids) {
+        Map<UUID, User> users = lockExistingUsers(ids);
+        for (UUID id : ids) {
+            if (!users.containsKey(id)) {
+                logger.error("Usuário não encontrado com o ID: {}", id);
+                throw new EntityNotFoundException("Usuário não encontrado com o ID: " + id);
+            }
+        }
+        return users;
+    }
+
+    public Map<UUID, User> lockExistingUsers(final Collection<UUID> ids) {
+        List<UUID> ordered = AccountLockManager.canonicalOrder(ids);
+        accountLockManager.lockForCurrentTransaction(ordered);
+
+        Map<UUID, User> users = new HashMap<>();
+        for (User user : repository.findAllByIdForUpdate(ordered)) {
+            users.put(user.getId(), user);
+        }
+        // Lido depois do lock: nenhum débito concorrente nessas contas pode estar em andamento
+        fillBalances(users.values());
+        return users;
+    }
+
+    public Map<UUID, User> findExistingUsers(final Collection<UUID> ids) {
+        Map<UUID, User> users = new HashMap<>();
+        for (User user : repository.findAllById(ids)) {
+            users.put(user.getId(), user);
+        }
+        fillBalances(users.values());
+        return users;
+    }
+
+    public Money getBalance(final UUID id, boolean replay) {
+        if (replay) {
+            getProfile(id);
+            return ledgerService.replayBalance(id);
+        }
+        return ledgerService.currentBalance(id)
+            .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com o ID: " + id));
+    }
+
+    public int configureHotAccount(final UUID id, int slots) {
+        getProfile(id);
+        return ledgerService.configureHotAccount(id, slots);
+    }
+
+    private void fillBalances(Collection<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<UUID, Money> balances = ledgerService.currentBalances(users.stream().map(User::getId).toList());
+        for (User user : users) {
+            user.setBalance(balances.getOrDefault(user.getId(), Money.ZERO));
+        }
+    }
+
+    @Transactional
     public User createUser(UserDTO data) {
         User newUser = new User(data);
         logger.info("Criando novo usuário: {}", newUser.getEmail());
         saveUser(newUser);
+        ledgerService.openAccount(newUser.getId(), newUser.getBalance());
+        if (newUser.getBalance() == null) {
+            newUser.setBalance(Money.ZERO);
+        }
         return newUser;
     }
 
-    public List<User> getAllUsers() {
-        logger.info("Buscando todos os usuários cadastrados.");
-        return repository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPageDTO<User> getUsersPage(String cursor, int size) {
+        int limit = PageCursors.clampSize(size);
+        List<User> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = repository.findFirstPage(Limit.of(limit + 1));
+        } else {
+            UUID after = PageCursors.decode(cursor, 1, values -> UUID.fromString(values[0]));
+            rows = repository.findPageAfter(after, Limit.of(limit + 1));
+        }
+
+        if (rows.size() <= limit) {
+            fillBalances(rows);
+            return new CursorPageDTO<>(rows, null);
+        }
+        List<User> items = rows.subList(0, limit);
+        fillBalances(items);
+        return new CursorPageDTO<>(items, PageCursors.encode(items.get(limit - 1).getId().toString()));
+    }
+
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<User> consumer) {
+        logger.info("Exportando todos os usuários em streaming.");
+        try (Stream<User> users = repository.streamAll()) {
+            // Saldos buscados em blocos, uma consulta por bloco em vez de uma por usuário
+            List<User> chunk = new ArrayList<>(PageCursors.STREAM_CLEAR_INTERVAL);
+            for (User user : (Iterable<User>) users::iterator) {
+                chunk.add(user);
+                if (chunk.size() == PageCursors.STREAM_CLEAR_INTERVAL) {
+                    emitChunk(chunk, consumer);
+                    entityManager.clear();
+                }
+            }
+            emitChunk(chunk, consumer);
+        }
+    }
+
+    private void emitChunk(List<User> chunk, Consumer<User> consumer) {
+        fillBalances(chunk);
+        chunk.forEach(consumer);
+        chunk.clear();
     }
 
     public void saveUser(User user) {
         try {
             logger.info("Salvando usuário com ID: {}", user.getId());
             repository.save(user);
+            if (user.getId() != null) {
+                profileCache.invalidate(user.getId());
+            }
             logger.info("Usuário salvo com sucesso: {}", user.getId());
         } catch (RuntimeException e) {
             logger.error("Erro ao salvar usuário: {}", user.getId(), e);
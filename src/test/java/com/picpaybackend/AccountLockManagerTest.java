@@ -0,0 +1,101 @@
+package com.picpaybackend;
+
+import com.picpaybackend.infra.AccountLockManager;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountLockManagerTest.class);
+
+    @Test
+    void testCanonicalOrderMatchesUnsignedUuidOrder() {
+        logger.info("Testando ordem canônica dos UUIDs...");
+
+        UUID low = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID high = UUID.fromString("ffffffff-0000-0000-0000-000000000000");
+
+        // UUID.compareTo usa comparação com sinal e colocaria "high" antes de "low"
+        assertEquals(List.of(low, high), AccountLockManager.canonicalOrder(List.of(high, low, high)));
+    }
+
+    @Test
+    void testOppositeTransfersDoNotDeadlock() throws Exception {
+        logger.info("Testando transferências A->B e B->A concorrentes...");
+
+        AccountLockManager lockManager = new AccountLockManager(16, 5000);
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        int iterations = 10_000;
+        long[] counter = new long[1];
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> forward = executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    try (AccountLockManager.AccountLocks ignored = lockManager.acquire(List.of(a, b))) {
+                        counter[0]++;
+                    }
+                }
+            });
+            Future<?> backward = executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    try (AccountLockManager.AccountLocks ignored = lockManager.acquire(List.of(b, a))) {
+                        counter[0]++;
+                    }
+                }
+            });
+
+            forward.get(30, TimeUnit.SECONDS);
+            backward.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2L * iterations, counter[0]);
+    }
+
+    @Test
+    void testAcquireTimesOutWhenAccountIsBusy() throws Exception {
+        logger.info("Testando tempo esgotado aguardando lock...");
+
+        AccountLockManager lockManager = new AccountLockManager(16, 50);
+        UUID account = UUID.randomUUID();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            try (AccountLockManager.AccountLocks ignored = lockManager.acquire(List.of(account))) {
+                locked.countDown();
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        locked.await();
+        assertThrows(CannotAcquireLockException.class, () -> lockManager.acquire(List.of(account)));
+        done.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testLockForCurrentTransactionRequiresTransaction() {
+        AccountLockManager lockManager = new AccountLockManager(16, 50);
+
+        assertThrows(IllegalStateException.class, () -> lockManager.lockForCurrentTransaction(List.of(UUID.randomUUID())));
+    }
+}
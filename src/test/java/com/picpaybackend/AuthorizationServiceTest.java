@@ -0,0 +1,207 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.authorization.AuthorizationDecision;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.infra.AuthorizationProperties;
+import com.picpaybackend.infra.CircuitBreaker;
+import com.picpaybackend.services.AuthorizationService;
+import com.picpaybackend.services.PreAuthorizationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuthorizationServiceTest {
+
+    private static final String PATH = "/authorize";
+    private static final Logger logger = LoggerFactory.getLogger(AuthorizationServiceTest.class);
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private PreAuthorizationService preAuthorizationService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private User sender;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+
+        sender = new User();
+        sender.setId(UUID.randomUUID());
+        when(preAuthorizationService.evaluate(any(), any()))
+            .thenReturn(new PreAuthorizationService.Decision(AuthorizationDecision.DEFER, "default"));
+    }
+
+    private AuthorizationService service(Duration timeout, int failureThreshold, boolean hedgeEnabled) {
+        AuthorizationProperties properties = new AuthorizationProperties(PATH, timeout, Duration.ofSeconds(5), 3,
+            Duration.ofMillis(1), Duration.ofMillis(5), 8, failureThreshold, Duration.ofMinutes(1), hedgeEnabled, Duration.ofMillis(50));
+        return new AuthorizationService(restTemplate, properties, meterRegistry, executor, preAuthorizationService);
+    }
+
+    private static ResponseEntity<Map> approved() {
+        return ResponseEntity.ok(Map.of("status", "success", "data", Map.of("authorization", true)));
+    }
+
+    @Test
+    void testAuthorize_RetriesServerErrorsAndSucceeds() {
+        logger.info("Iniciando teste de novas tentativas após erro 5xx...");
+
+        when(restTemplate.getForEntity(PATH, Map.class))
+            .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR))
+            .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR))
+            .thenReturn(approved());
+
+        assertDoesNotThrow(() -> service(Duration.ofSeconds(1), 5, false).authorize(sender, Money.ofMajor(10)));
+
+        verify(restTemplate, times(3)).getForEntity(PATH, Map.class);
+        verify(preAuthorizationService, never()).recordReleased(any(), any());
+        assertEquals(2.0, meterRegistry.counter("authorization.attempts", "result", "error").count());
+        assertEquals(1.0, meterRegistry.counter("authorization.retries", "attempt", "2").count());
+        assertEquals(1.0, meterRegistry.counter("authorization.retries", "attempt", "3").count());
+        assertEquals(1, meterRegistry.timer("authorization.requests", "outcome", "approved").count());
+    }
+
+    @Test
+    void testAuthorize_LocalDecisionSkipsRemoteCall() {
+        AuthorizationService authorizationService = service(Duration.ofSeconds(1), 5, false);
+        when(preAuthorizationService.evaluate(sender.getId(), Money.ofMajor(1)))
+            .thenReturn(new PreAuthorizationService.Decision(AuthorizationDecision.APPROVE, "low-value"));
+        when(preAuthorizationService.evaluate(sender.getId(), Money.ofMajor(50000)))
+            .thenReturn(new PreAuthorizationService.Decision(AuthorizationDecision.DENY, "amount-limit"));
+
+        assertDoesNotThrow(() -> authorizationService.authorize(sender, Money.ofMajor(1)));
+        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class,
+            () -> authorizationService.authorize(sender, Money.ofMajor(50000)));
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testAuthorize_LocalSaturationFailsFastWithoutOpeningCircuit() {
+        AuthorizationProperties properties = new AuthorizationProperties(PATH, Duration.ofSeconds(1), Duration.ofSeconds(5), 3,
+            Duration.ofMillis(1), Duration.ofMillis(5), 8, 2, Duration.ofMinutes(1), false, Duration.ofMillis(50));
+        Executor saturated = command -> {
+            throw new RejectedExecutionException("Limite de tarefas simultâneas atingido");
+        };
+        AuthorizationService authorizationService = new AuthorizationService(restTemplate, properties, meterRegistry,
+            saturated, preAuthorizationService);
+
+        for (int i = 0; i < 5; i++) {
+            HttpServerErrorException exception = assertThrows(HttpServerErrorException.class,
+                () -> authorizationService.authorize(sender, Money.ofMajor(10)));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        }
+
+        // Acima do limite de falhas, mas nenhuma chegou ao autorizador: o circuito continua fechado
+        assertEquals(CircuitBreaker.State.CLOSED, authorizationService.getCircuitState());
+        assertEquals(5.0, meterRegistry.counter("authorization.attempts", "result", "saturated").count());
+        assertEquals(0, meterRegistry.find("authorization.retries").counters().size());
+        assertEquals(5, meterRegistry.timer("authorization.requests", "outcome", "saturated").count());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    void testAuthorize_AuthorizationNotPresentIsNotRetried() {
+        logger.info("Iniciando teste de autorização ausente...");
+
+        when(restTemplate.getForEntity(PATH, Map.class))
+            .thenReturn(ResponseEntity.ok(Map.of("status", "success", "data", Map.of("someOtherKey", true))));
+
+        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class,
+            () -> service(Duration.ofSeconds(1), 5, false).authorize(sender, Money.ofMajor(10)));
+
+        logger.info("Mensagem da exceção: " + exception.getResponseBodyAsString());
+
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+        assertTrue(exception.getResponseBodyAsString().contains("Transação não autorizada"));
+        verify(restTemplate, times(1)).getForEntity(PATH, Map.class);
+    }
+
+    @Test
+    void testAuthorize_TimesOutSlowAuthorizer() {
+        logger.info("Iniciando teste de tempo esgotado...");
+
+        when(restTemplate.getForEntity(PATH, Map.class)).thenAnswer(invocation -> {
+            Thread.sleep(500);
+            return approved();
+        });
+
+        HttpServerErrorException exception = assertThrows(HttpServerErrorException.class,
+            () -> service(Duration.ofMillis(20), 5, false).authorize(sender, Money.ofMajor(10)));
+
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, exception.getStatusCode());
+        assertEquals(3.0, meterRegistry.counter("authorization.attempts", "result", "timeout").count());
+    }
+
+    @Test
+    void testAuthorize_OpenCircuitFailsFast() {
+        logger.info("Iniciando teste do circuit breaker...");
+
+        when(restTemplate.getForEntity(PATH, Map.class))
+            .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+        AuthorizationService authorizationService = service(Duration.ofSeconds(1), 3, false);
+
+        assertThrows(HttpServerErrorException.class, () -> authorizationService.authorize(sender, Money.ofMajor(10)));
+        assertEquals(CircuitBreaker.State.OPEN, authorizationService.getCircuitState());
+
+        HttpServerErrorException exception = assertThrows(HttpServerErrorException.class,
+            () -> authorizationService.authorize(sender, Money.ofMajor(10)));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        verify(restTemplate, times(3)).getForEntity(PATH, Map.class);
+    }
+
+    @Test
+    void testAuthorize_HedgedRequestWinsOverSlowCall() {
+        logger.info("Iniciando teste de chamada paralela (hedge)...");
+
+        when(restTemplate.getForEntity(PATH, Map.class))
+            .thenAnswer(invocation -> {
+                Thread.sleep(2000);
+                return approved();
+            })
+            .thenReturn(approved());
+
+        long start = System.nanoTime();
+        assertDoesNotThrow(() -> service(Duration.ofSeconds(5), 5, true).authorize(sender, Money.ofMajor(10)));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+        assertEquals(1.0, meterRegistry.counter("authorization.hedges").count());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        closeable.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.picpaybackend;
+
+import com.picpaybackend.infra.BoundedExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedExecutorTest {
+
+    private ExecutorService delegate;
+    private BoundedExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        delegate = Executors.newCachedThreadPool();
+        executor = new BoundedExecutor(delegate, 2);
+    }
+
+    @Test
+    void testExecute_RejectsAboveLimitAndReleasesOnCompletion() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        };
+
+        executor.execute(blocking);
+        executor.execute(blocking);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        release.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> next = CompletableFuture.runAsync(() -> { }, executor);
+        next.get(5, TimeUnit.SECONDS);
+        assertTrue(next.isDone());
+    }
+
+    @Test
+    void testExecute_ReleasesPermitWhenTaskFails() throws Exception {
+        CompletableFuture<Void> failed = CompletableFuture.runAsync(() -> { throw new IllegalStateException("Falha"); }, executor);
+
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        delegate.shutdown();
+        assertTrue(delegate.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, executor.availablePermits());
+    }
+
+    @Test
+    void testClose_ShutsDownDelegate() {
+        executor.close();
+
+        assertTrue(delegate.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertEquals(2, executor.availablePermits());
+    }
+
+    @AfterEach
+    void tearDown() {
+        delegate.shutdownNow();
+    }
+}
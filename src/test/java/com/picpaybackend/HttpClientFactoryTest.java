@@ -0,0 +1,62 @@
+package com.picpaybackend;
+
+import com.picpaybackend.infra.HttpClientFactory;
+import com.picpaybackend.infra.HttpClientProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientFactoryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private HttpClientFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        HttpClientProperties properties = new HttpClientProperties(Map.of(
+            "authorizer", new HttpClientProperties.Client("http://autorizador.local/api", Duration.ofMillis(500),
+                Duration.ofSeconds(2), Duration.ofMillis(200), 16, Duration.ofSeconds(30), false),
+            "notifier", new HttpClientProperties.Client("http://notificador.local/api", Duration.ofMillis(500),
+                Duration.ofSeconds(2), Duration.ofMillis(200), 4, Duration.ofSeconds(30), true)));
+        factory = new HttpClientFactory(properties, new RestTemplateBuilder(), meterRegistry);
+    }
+
+    @Test
+    void testCreatePooledClient() {
+        RestTemplate restTemplate = factory.create("authorizer");
+
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, restTemplate.getRequestFactory());
+        assertEquals("http://autorizador.local/api/authorize", restTemplate.getUriTemplateHandler().expand("/authorize").toString());
+        assertNotNull(meterRegistry.find("http.client.pool.leased").tag("client.name", "authorizer").gauge());
+    }
+
+    @Test
+    void testCreateHttp2Client() {
+        RestTemplate restTemplate = factory.create("notifier");
+
+        assertInstanceOf(JdkClientHttpRequestFactory.class, restTemplate.getRequestFactory());
+    }
+
+    @Test
+    void testUnknownClientIsRejected() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> factory.create("desconhecido"));
+
+        assertEquals("Cliente HTTP não configurado: http.clients.desconhecido", exception.getMessage());
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.close();
+    }
+}
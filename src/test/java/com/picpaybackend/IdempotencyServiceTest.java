@@ -0,0 +1,171 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.idempotency.IdempotencyRecord;
+import com.picpaybackend.repositories.IdempotencyRecordRepository;
+import com.picpaybackend.services.IdempotencyService;
+import com.picpaybackend.services.IdempotencyService.StoredResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyService idempotencyService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(repository, 60_000, 100);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testExecute_ReplaysStoredResponse() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Callable<StoredResponse> action = () -> new StoredResponse(200, "{\"n\":" + calls.incrementAndGet() + "}", false);
+
+        StoredResponse first = idempotencyService.execute("key-1", "hash", action);
+        StoredResponse second = idempotencyService.execute("key-1", "hash", action);
+
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertEquals(first.body(), second.body());
+        assertEquals(1, calls.get());
+        verify(repository, times(1)).save(argThat(record -> record.isCompleted() && record.getStatusCode() == 200));
+    }
+
+    @Test
+    void testExecute_ReplaysFromDatabaseAfterCacheMiss() throws Exception {
+        IdempotencyRecord record = new IdempotencyRecord("key-1", "hash", LocalDateTime.now(), LocalDateTime.now().plusHours(1));
+        record.complete(200, "{\"stored\":true}");
+        when(repository.findById("key-1")).thenReturn(Optional.of(record));
+
+        StoredResponse response = idempotencyService.execute("key-1", "hash", () -> fail("Não deveria executar de novo"));
+
+        assertTrue(response.replayed());
+        assertEquals("{\"stored\":true}", response.body());
+    }
+
+    @Test
+    void testExecute_RejectsDifferentPayload() throws Exception {
+        idempotencyService.execute("key-1", "hash", () -> new StoredResponse(200, "{}", false));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("key-1", "other-hash", () -> new StoredResponse(200, "{}", false)));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatusCode());
+    }
+
+    @Test
+    void testExecute_ReleasesKeyWhenActionFails() throws Exception {
+        assertThrows(IllegalStateException.class,
+                () -> idempotencyService.execute("key-1", "hash", () -> { throw new IllegalStateException("Falha"); }));
+
+        StoredResponse retry = idempotencyService.execute("key-1", "hash", () -> new StoredResponse(200, "{}", false));
+
+        assertFalse(retry.replayed());
+        verify(repository, times(1)).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_KeepsKeyWhenResponseFailsAfterAction() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Callable<Integer> action = calls::incrementAndGet;
+
+        StoredResponse first = idempotencyService.execute("key-1", "hash", action, result -> {
+            throw new IllegalStateException("Falha ao serializar");
+        });
+        StoredResponse retry = idempotencyService.execute("key-1", "hash", action,
+                result -> new StoredResponse(200, "{}", false));
+
+        assertEquals(500, first.statusCode());
+        assertTrue(retry.replayed());
+        assertEquals(first.body(), retry.body());
+        assertEquals(1, calls.get());
+        verify(repository, never()).delete(any(IdempotencyRecord.class));
+        verify(repository).save(argThat(record -> record.isCompleted() && record.getStatusCode() == 500));
+    }
+
+    @Test
+    void testExecute_ReturnsResponseWhenStoringItFails() throws Exception {
+        when(repository.save(any(IdempotencyRecord.class))).thenThrow(new DataIntegrityViolationException("value too long"));
+        AtomicInteger calls = new AtomicInteger();
+        Callable<StoredResponse> action = () -> new StoredResponse(200, "{\"n\":" + calls.incrementAndGet() + "}", false);
+
+        StoredResponse first = idempotencyService.execute("key-1", "hash", action);
+        StoredResponse retry = idempotencyService.execute("key-1", "hash", action);
+
+        assertEquals(200, first.statusCode());
+        assertTrue(retry.replayed());
+        assertEquals(1, calls.get());
+        verify(repository, never()).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_ConflictsWithReservationCreatedAfterCheck() throws Exception {
+        // Outra instância reservou a chave entre a consulta e a inserção: a reserva dela não é apagada
+        when(repository.saveAndFlush(any(IdempotencyRecord.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key idempotency_keys_pkey"));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute("key-1", "hash", () -> fail("Não deveria executar")));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(repository).deleteIfExpired(eq("key-1"), any(LocalDateTime.class));
+        verify(repository, never()).delete(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testExecute_CoalescesConcurrentDuplicates() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Callable<StoredResponse> action = () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return new StoredResponse(200, "{}", false);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StoredResponse> first = executor.submit(() -> idempotencyService.execute("key-1", "hash", action));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<StoredResponse> duplicate = executor.submit(() -> idempotencyService.execute("key-1", "hash", action));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertFalse(first.get(5, TimeUnit.SECONDS).replayed());
+            assertTrue(duplicate.get(5, TimeUnit.SECONDS).replayed());
+            assertEquals(1, calls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+}
@@ -0,0 +1,129 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.engine.EngineCheckpoint;
+import com.picpaybackend.domain.ledger.LedgerCheckpoint;
+import com.picpaybackend.domain.ledger.LedgerEntry;
+import com.picpaybackend.domain.user.UserProfile;
+import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.infra.TransferEngineProperties;
+import com.picpaybackend.infra.TransferJournal;
+import com.picpaybackend.repositories.BalanceSlotRepository;
+import com.picpaybackend.repositories.BalanceSnapshotRepository;
+import com.picpaybackend.repositories.EngineCheckpointRepository;
+import com.picpaybackend.repositories.HotAccountRepository;
+import com.picpaybackend.repositories.LedgerCheckpointRepository;
+import com.picpaybackend.repositories.LedgerEntryRepository;
+import com.picpaybackend.services.JournalReplicator;
+import com.picpaybackend.services.LedgerService;
+import com.picpaybackend.services.NotificationService;
+import com.picpaybackend.services.TransferEngine;
+import com.picpaybackend.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JournalReplicatorTest {
+
+    @Mock
+    private TransferEngine engine;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EngineCheckpointRepository engineCheckpointRepository;
+
+    @Mock
+    private LedgerEntryRepository entryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private LedgerCheckpointRepository ledgerCheckpointRepository;
+
+    @Mock
+    private BalanceSlotRepository slotRepository;
+
+    @Mock
+    private HotAccountRepository hotAccountRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private UserService userService;
+
+    private AutoCloseable mocks;
+    private LedgerService ledgerService;
+    private JournalReplicator replicator;
+    private final LedgerCheckpoint ledgerCheckpoint = new LedgerCheckpoint(LocalDateTime.of(2000, 1, 1, 0, 0));
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        ledgerService = new LedgerService(entryRepository, snapshotRepository, ledgerCheckpointRepository, slotRepository,
+            hotAccountRepository, 60_000);
+        TransferEngineProperties properties = new TransferEngineProperties(true, "engine", 1024, 64, 1 << 20, 1000, 16,
+            Duration.ofMillis(20), 100, Duration.ofSeconds(5), Duration.ofMinutes(1));
+        replicator = new JournalReplicator(engine, jdbcTemplate, new TransactionTemplate(transactionManager),
+            engineCheckpointRepository, ledgerService, notificationService, userService, properties);
+
+        when(ledgerCheckpointRepository.findForUpdate()).thenReturn(Optional.of(ledgerCheckpoint));
+        when(engineCheckpointRepository.findForUpdate()).thenAnswer(invocation -> Optional.of(new EngineCheckpoint(0, LocalDateTime.now())));
+        when(userService.getProfile(any())).thenAnswer(invocation ->
+            new UserProfile(invocation.getArgument(0), UserType.COMMON, "user@email.com", "123"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReplicateBatch_LateEntriesLandAfterConsolidationCheckpoint() throws Exception {
+        // Transferência aplicada pelo engine uma hora atrás e só replicada agora (banco fora do ar)
+        LocalDateTime appliedAt = LocalDateTime.now().minusHours(1);
+        TransferJournal.Entry transfer = new TransferJournal.Entry(1, TransferJournal.TRANSFER, UUID.randomUUID(),
+            UUID.randomUUID(), UUID.randomUUID(), 3000, appliedAt);
+        when(engine.durableSequence()).thenReturn(1L);
+        when(engine.readJournal(eq(1L), eq(1L), anyInt(), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<TransferJournal.Entry>>getArgument(3).accept(transfer);
+            return 1;
+        });
+
+        ledgerService.consolidate();
+        LocalDateTime checkpoint = ledgerCheckpoint.getAsOf();
+        assertTrue(checkpoint.isAfter(appliedAt));
+
+        assertEquals(1, replicator.replicateBatch());
+
+        // Lançamentos com data anterior ao checkpoint nunca entrariam em nenhum saldo
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(entryRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertTrue(captor.getValue().stream().noneMatch(entry -> entry.getCreatedAt().isBefore(checkpoint)));
+        verify(engine).markReplicated(1L);
+    }
+}
@@ -0,0 +1,189 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.ledger.BalanceSlot;
+import com.picpaybackend.domain.ledger.BalanceSnapshot;
+import com.picpaybackend.domain.ledger.EntryDirection;
+import com.picpaybackend.domain.ledger.HotAccount;
+import com.picpaybackend.domain.ledger.LedgerCheckpoint;
+import com.picpaybackend.domain.ledger.LedgerEntry;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.AccountBalanceDTO;
+import com.picpaybackend.repositories.BalanceSlotRepository;
+import com.picpaybackend.repositories.BalanceSnapshotRepository;
+import com.picpaybackend.repositories.HotAccountRepository;
+import com.picpaybackend.repositories.LedgerCheckpointRepository;
+import com.picpaybackend.repositories.LedgerEntryRepository;
+import com.picpaybackend.services.LedgerService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LedgerServiceTest {
+
+    @Mock
+    private LedgerEntryRepository entryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository snapshotRepository;
+
+    @Mock
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Mock
+    private BalanceSlotRepository slotRepository;
+
+    @Mock
+    private HotAccountRepository hotAccountRepository;
+
+    private LedgerService ledgerService;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        ledgerService = new LedgerService(entryRepository, snapshotRepository, checkpointRepository, slotRepository, hotAccountRepository, 60_000);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordTransfer_WritesDebitAndCredit() {
+        User sender = user();
+        User receiver = user();
+        Transaction transaction = new Transaction();
+        transaction.setId(UUID.randomUUID());
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setAmount(Money.parse("25.00"));
+        transaction.setTimestamp(LocalDateTime.now());
+
+        ledgerService.recordTransfer(transaction);
+
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(entryRepository).saveAll(captor.capture());
+        List<LedgerEntry> entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(EntryDirection.DEBIT, entries.get(0).getDirection());
+        assertEquals(sender.getId(), entries.get(0).getAccountId());
+        assertEquals(EntryDirection.CREDIT, entries.get(1).getDirection());
+        assertEquals(receiver.getId(), entries.get(1).getAccountId());
+        assertEquals(Money.ZERO, entries.get(0).signedAmount().plus(entries.get(1).signedAmount()));
+        assertTrue(entries.stream().allMatch(entry -> transaction.getId().equals(entry.getTransactionId())));
+        assertTrue(entries.stream().noneMatch(LedgerEntry::isSlotted));
+        verifyNoInteractions(slotRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecordTransfer_CreditToHotAccountGoesToSlot() {
+        User sender = user();
+        User merchant = user();
+        when(hotAccountRepository.findAll()).thenReturn(List.of(new HotAccount(merchant.getId(), 8, LocalDateTime.now())));
+        when(slotRepository.addToSlot(eq(merchant.getId()), anyInt(), anyLong())).thenReturn(1);
+        ledgerService.refreshHotAccounts();
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(merchant);
+        transaction.setAmount(Money.parse("10.00"));
+        ledgerService.recordTransfer(transaction);
+
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(entryRepository).saveAll(captor.capture());
+        assertFalse(captor.getValue().get(0).isSlotted());
+        assertTrue(captor.getValue().get(1).isSlotted());
+        verify(slotRepository).addToSlot(eq(merchant.getId()), intThat(slot -> slot >= 0 && slot < 8), eq(1000L));
+    }
+
+    @Test
+    void testRecordTransfer_MissingSlotFallsBackToLedgerDelta() {
+        User sender = user();
+        User merchant = user();
+        when(hotAccountRepository.findAll()).thenReturn(List.of(new HotAccount(merchant.getId(), 4, LocalDateTime.now())));
+        when(slotRepository.addToSlot(any(UUID.class), anyInt(), anyLong())).thenReturn(0);
+        ledgerService.refreshHotAccounts();
+
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(merchant);
+        transaction.setAmount(Money.parse("10.00"));
+        ledgerService.recordTransfer(transaction);
+
+        verify(entryRepository).saveAll(argThat((List<LedgerEntry> entries) -> entries.stream().noneMatch(LedgerEntry::isSlotted)));
+    }
+
+    @Test
+    void testConfigureHotAccount_CreatesOnlyMissingSlots() {
+        UUID merchant = UUID.randomUUID();
+        when(hotAccountRepository.findById(merchant)).thenReturn(Optional.empty());
+        when(slotRepository.countSlots(merchant)).thenReturn(2);
+
+        ledgerService.configureHotAccount(merchant, 4);
+
+        verify(slotRepository).saveAll(argThat((List<BalanceSlot> slots) -> slots.size() == 2
+            && slots.get(0).getSlot() == 2 && slots.get(1).getSlot() == 3));
+        verify(hotAccountRepository).save(argThat(hot -> hot.getSlots() == 4));
+    }
+
+    @Test
+    void testConsolidate_FoldsDeltasIntoSnapshotsAndAdvancesCheckpoint() {
+        UUID known = UUID.randomUUID();
+        UUID fresh = UUID.randomUUID();
+        LocalDateTime previous = LocalDateTime.now().minusHours(1);
+        LedgerCheckpoint checkpoint = new LedgerCheckpoint(previous);
+        when(checkpointRepository.findForUpdate()).thenReturn(Optional.of(checkpoint));
+        when(entryRepository.sumByAccountBetween(eq(previous), any(LocalDateTime.class))).thenReturn(List.of(
+            new AccountBalanceDTO(known, Money.parse("-30.00")),
+            new AccountBalanceDTO(fresh, Money.parse("30.00"))));
+        BalanceSnapshot existing = new BalanceSnapshot(known, Money.parse("100.00"), previous);
+        when(snapshotRepository.findAllById(anyList())).thenReturn(List.of(existing));
+
+        ledgerService.consolidate();
+
+        assertEquals(Money.parse("70.00"), existing.getBalance());
+        verify(snapshotRepository).saveAll(argThat((Collection<BalanceSnapshot> saved) -> saved.size() == 2
+            && saved.stream().anyMatch(s -> s.getAccountId().equals(fresh) && s.getBalance().equals(Money.parse("30.00")))));
+        assertTrue(checkpoint.getAsOf().isAfter(previous));
+        assertTrue(checkpoint.getAsOf().isBefore(LocalDateTime.now().minusSeconds(59)));
+    }
+
+    @Test
+    void testConsolidate_SkipsWhenCheckpointIsWithinGrace() {
+        LedgerCheckpoint checkpoint = new LedgerCheckpoint(LocalDateTime.now());
+        when(checkpointRepository.findForUpdate()).thenReturn(Optional.of(checkpoint));
+
+        ledgerService.consolidate();
+
+        verifyNoInteractions(entryRepository, snapshotRepository);
+    }
+
+    @Test
+    void testOpenAccount_SkipsZeroBalance() {
+        ledgerService.openAccount(UUID.randomUUID(), Money.ZERO);
+        ledgerService.openAccount(UUID.randomUUID(), null);
+
+        verifyNoInteractions(entryRepository);
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        return user;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.picpaybackend;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.TransactionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void parseReadsMinorUnits() {
+        assertEquals(1050, Money.parse("10.5").minorUnits());
+        assertEquals(1000, Money.parse("10").minorUnits());
+        assertEquals(-5, Money.parse("-0.05").minorUnits());
+        assertEquals(1234, Money.parse("12.3400").minorUnits());
+        assertEquals(150, Money.parse("1.5e0").minorUnits());
+    }
+
+    @Test
+    void parseRejectsExtraDecimalsAndOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.parse("10.001"));
+        assertThrows(ArithmeticException.class, () -> Money.parse("999999999999999999999"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.125")));
+    }
+
+    @Test
+    void arithmeticIsExact() {
+        Money balance = Money.parse("100.00");
+
+        assertEquals(Money.parse("99.99"), balance.minus(Money.ofMinor(1)));
+        assertEquals(Money.parse("200.00"), balance.plus(balance));
+        assertTrue(Money.ofMinor(5).isLessThan(Money.ofMinor(6)));
+        assertEquals(new BigDecimal("100.00"), balance.toBigDecimal());
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+    }
+
+    @Test
+    void toStringAlwaysHasTwoDecimals() {
+        assertEquals("10.50", Money.ofMinor(1050).toString());
+        assertEquals("-0.05", Money.ofMinor(-5).toString());
+        assertEquals("-12.30", Money.ofMinor(-1230).toString());
+        assertEquals("0.00", Money.ZERO.toString());
+    }
+
+    @Test
+    void jsonKeepsDecimalNumbers() throws JsonProcessingException {
+        UUID id = UUID.randomUUID();
+        TransactionDTO dto = objectMapper.readValue(
+            "{\"value\": 200.5, \"senderId\": \"" + id + "\", \"receiverId\": \"" + id + "\"}", TransactionDTO.class);
+
+        assertEquals(Money.parse("200.50"), dto.value());
+        assertTrue(objectMapper.writeValueAsString(dto).contains("\"value\":200.50"));
+        assertEquals(Money.ofMajor(3), objectMapper.readValue("\"3\"", Money.class));
+    }
+
+    @Test
+    void jsonRejectsMoreThanTwoDecimals() {
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readValue("10.001", Money.class));
+    }
+}
@@ -0,0 +1,170 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.notification.NotificationOutbox;
+import com.picpaybackend.domain.notification.NotificationStatus;
+import com.picpaybackend.repositories.NotificationOutboxRepository;
+import com.picpaybackend.services.NotificationDispatcher;
+import com.picpaybackend.services.NotificationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDispatcherTest {
+
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcherTest.class);
+
+    private NotificationDispatcher dispatcher;
+    private NotificationOutbox notification;
+    private List<NotificationOutbox> due;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new NotificationDispatcher(outboxRepository, notificationService,
+            new TransactionTemplate(transactionManager), Runnable::run, 10, 3, 1000, 60000, 60000, 0, 50);
+        notification = new NotificationOutbox("teste@email.com", "Transação concluída com sucesso", LocalDateTime.now());
+
+        due = List.of(notification);
+
+        when(outboxRepository.findDueForUpdate(anyCollection(), any(LocalDateTime.class), anyInt(), anyInt()))
+            .thenAnswer(invocation -> due);
+        when(outboxRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testDispatchMarksNotificationAsSent() throws Exception {
+        assertEquals(1, dispatcher.dispatchBatch());
+        logger.info("Notificação entregue: {}", notification.getStatus());
+
+        assertEquals(NotificationStatus.SENT, notification.getStatus());
+        assertEquals(1, notification.getAttempts());
+        assertNotNull(notification.getSentAt());
+        verify(notificationService, times(1)).sendNotification("teste@email.com", "Transação concluída com sucesso");
+    }
+
+    @Test
+    void testDispatchFailureSchedulesRetryWithBackoff() throws Exception {
+        doThrow(new Exception("Serviço de notificação indisponível"))
+            .when(notificationService).sendNotification(anyString(), anyString());
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatchBatch();
+
+        assertEquals(NotificationStatus.PENDING, notification.getStatus());
+        assertEquals(1, notification.getAttempts());
+        assertEquals("Serviço de notificação indisponível", notification.getLastError());
+        assertTrue(notification.getNextAttemptAt().isAfter(before.plusNanos(900_000_000)));
+    }
+
+    @Test
+    void testDispatchGivesUpAfterMaxAttempts() throws Exception {
+        notification.setAttempts(2);
+        doThrow(new Exception("Serviço de notificação indisponível"))
+            .when(notificationService).sendNotification(anyString(), anyString());
+
+        dispatcher.dispatchBatch();
+
+        assertEquals(NotificationStatus.FAILED, notification.getStatus());
+        assertEquals(3, notification.getAttempts());
+    }
+
+    @Test
+    void testDispatchCoalescesRecipientWithinWindow() throws Exception {
+        dispatcher = new NotificationDispatcher(outboxRepository, notificationService,
+            new TransactionTemplate(transactionManager), Runnable::run, 10, 3, 1000, 60000, 60000, 60000, 2);
+        List<NotificationOutbox> payments = List.of(
+            new NotificationOutbox("loja@email.com", "Transação concluída com sucesso", LocalDateTime.now()),
+            new NotificationOutbox("loja@email.com", "Transação concluída com sucesso", LocalDateTime.now()),
+            notification);
+        due = payments;
+
+        assertEquals(3, dispatcher.dispatchBatch());
+
+        // O lote é reservado com no máximo max-digest-size linhas por destinatário
+        verify(outboxRepository).findDueForUpdate(anyCollection(), any(LocalDateTime.class), eq(2), eq(10));
+        verify(notificationService).sendNotification("loja@email.com", "2 notificações: Transação concluída com sucesso (2x)");
+        verify(notificationService).sendNotification("teste@email.com", "Transação concluída com sucesso");
+        assertEquals(NotificationStatus.SENT, payments.get(1).getStatus());
+
+        // Recebeu há menos de uma janela: volta para a fila sem gastar tentativa
+        NotificationOutbox next = new NotificationOutbox("loja@email.com", "Transação concluída com sucesso", LocalDateTime.now());
+        due = List.of(next);
+        dispatcher.dispatchBatch();
+
+        assertEquals(NotificationStatus.PENDING, next.getStatus());
+        assertEquals(0, next.getAttempts());
+        assertTrue(next.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    void testDispatchFailureDoesNotHoldRecipient() throws Exception {
+        dispatcher = new NotificationDispatcher(outboxRepository, notificationService,
+            new TransactionTemplate(transactionManager), Runnable::run, 10, 3, 1000, 60000, 60000, 60000, 2);
+        doThrow(new Exception("Serviço de notificação indisponível"))
+            .doNothing()
+            .when(notificationService).sendNotification(anyString(), anyString());
+
+        dispatcher.dispatchBatch();
+        assertEquals(NotificationStatus.PENDING, notification.getStatus());
+
+        // Nada foi entregue: a próxima tentativa não espera a janela de agrupamento
+        NotificationOutbox next = new NotificationOutbox("teste@email.com", "Transação concluída com sucesso", LocalDateTime.now());
+        due = List.of(next);
+        dispatcher.dispatchBatch();
+
+        assertEquals(NotificationStatus.SENT, next.getStatus());
+        verify(notificationService, times(2)).sendNotification("teste@email.com", "Transação concluída com sucesso");
+    }
+
+    @Test
+    void testDispatchDeliversRecipientsInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        dispatcher = new NotificationDispatcher(outboxRepository, notificationService,
+            new TransactionTemplate(transactionManager), executor, 10, 3, 1000, 60000, 60000, 0, 50);
+        NotificationOutbox receiver = new NotificationOutbox("recebedor@email.com", "Transação concluída com sucesso", LocalDateTime.now());
+        due = List.of(notification, receiver);
+
+        // Cada envio só termina quando o outro já começou
+        CountDownLatch started = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            started.countDown();
+            if (!started.await(5, TimeUnit.SECONDS)) {
+                throw new Exception("Envios não foram simultâneos");
+            }
+            return null;
+        }).when(notificationService).sendNotification(anyString(), anyString());
+
+        try {
+            dispatcher.dispatchBatch();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(NotificationStatus.SENT, notification.getStatus());
+        assertEquals(NotificationStatus.SENT, receiver.getStatus());
+    }
+}
@@ -1,14 +1,17 @@
 package com.picpaybackend;
 
+import com.picpaybackend.domain.notification.NotificationOutbox;
+import com.picpaybackend.domain.notification.NotificationStatus;
 import com.picpaybackend.domain.user.User;
 import com.picpaybackend.dtos.NotificationDTO;
+import com.picpaybackend.repositories.NotificationOutboxRepository;
 import com.picpaybackend.services.NotificationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -23,15 +26,17 @@ public class NotificationServiceTest {
 
     @Mock
     private RestTemplate restTemplate;
+    @Mock
+    private NotificationOutboxRepository outboxRepository;
     private final static Logger logger = LoggerFactory.getLogger(NotificationServiceTest.class);
 
-    @InjectMocks
     private NotificationService notificationService;
 
     private User user;
 
     @BeforeEach
     void setUp() {
+        notificationService = new NotificationService(restTemplate, outboxRepository, "/notify");
         user = new User();
         user.setEmail("teste@email.com");
     }
@@ -44,7 +49,7 @@ public class NotificationServiceTest {
         assertDoesNotThrow(() -> notificationService.sendNotification(user, "Transação concluída com sucesso"));
         logger.info("Transação concluída com sucesso");
 
-        verify(restTemplate, times(1)).postForEntity(any(String.class), any(NotificationDTO.class), eq(String.class));
+        verify(restTemplate, times(1)).postForEntity(eq("/notify"), any(NotificationDTO.class), eq(String.class));
     }
 
     @Test
@@ -57,4 +62,17 @@ public class NotificationServiceTest {
 
         verify(restTemplate, times(1)).postForEntity(any(String.class), any(NotificationDTO.class), eq(String.class));
     }
+
+    @Test
+    void testEnqueueNotificationDoesNotCallNotifier() {
+        notificationService.enqueueNotification(user, "Transação concluída com sucesso");
+
+        ArgumentCaptor<NotificationOutbox> captor = ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(outboxRepository, times(1)).save(captor.capture());
+        assertEquals("teste@email.com", captor.getValue().getEmail());
+        assertEquals(NotificationStatus.PENDING, captor.getValue().getStatus());
+        assertEquals(captor.getValue().getCreatedAt(), captor.getValue().getNextAttemptAt());
+
+        verifyNoInteractions(restTemplate);
+    }
 }
@@ -0,0 +1,166 @@
+package com.picpaybackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.picpaybackend.domain.authorization.AuthorizationDecision;
+import com.picpaybackend.domain.id.UuidV7Generator;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.services.PreAuthorizationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreAuthorizationServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private Path rulesFile;
+    private SimpleMeterRegistry meterRegistry;
+    private PreAuthorizationService preAuthorizationService;
+    private final UUID denied = UUID.randomUUID();
+    private final UUID allowed = UUID.randomUUID();
+    // v4, sem data de criação
+    private final UUID legacy = UUID.randomUUID();
+    private final UUID veteran = createdAgo(Duration.ofDays(90));
+    private final UUID newcomer = UuidV7Generator.next();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rulesFile = directory.resolve("rules.json");
+        write("""
+            {"denyAbove": 10000.00, "approveUpTo": 100.00, "minTenure": "P30D",
+             "velocity": {"window": "PT1M", "maxCount": 3, "maxAmount": 250.00},
+             "allow": ["%s"], "deny": ["%s"]}
+            """.formatted(allowed, denied));
+        meterRegistry = new SimpleMeterRegistry();
+        preAuthorizationService = new PreAuthorizationService(new ObjectMapper().registerModule(new JavaTimeModule()),
+            meterRegistry, rulesFile.toString(), 1000);
+    }
+
+    @Test
+    void testEvaluate_RulesInOrder() {
+        assertDecision(AuthorizationDecision.DENY, "deny-list", denied, "1.00");
+        assertDecision(AuthorizationDecision.DENY, "amount-limit", allowed, "10000.01");
+        assertDecision(AuthorizationDecision.APPROVE, "allow-list", allowed, "200.00");
+        assertDecision(AuthorizationDecision.APPROVE, "low-value", veteran, "100.00");
+        assertDecision(AuthorizationDecision.DEFER, "default", veteran, "100.01");
+        assertDecision(AuthorizationDecision.DEFER, "default", newcomer, "1.00");
+        assertDecision(AuthorizationDecision.DEFER, "default", legacy, "1.00");
+
+        assertEquals(1.0, meterRegistry.counter("authorization.local.decisions", "decision", "deny", "rule", "deny-list").count());
+    }
+
+    @Test
+    void testEvaluate_VelocityDefersToRemote() {
+        UUID sender = createdAgo(Duration.ofDays(60));
+        for (int i = 0; i < 3; i++) {
+            assertDecision(AuthorizationDecision.APPROVE, "low-value", sender, "10.00");
+            preAuthorizationService.recordReleased(sender, Money.parse("10.00"));
+        }
+        assertDecision(AuthorizationDecision.DEFER, "velocity", sender, "10.00");
+
+        // Soma na janela: 200 + 60 passa de 250 já na segunda
+        UUID other = createdAgo(Duration.ofDays(60));
+        for (int i = 0; i < 2; i++) {
+            assertDecision(AuthorizationDecision.APPROVE, "low-value", other, "100.00");
+            preAuthorizationService.recordReleased(other, Money.parse("100.00"));
+        }
+        assertDecision(AuthorizationDecision.DEFER, "velocity", other, "60.00");
+    }
+
+    @Test
+    void testEvaluate_VelocityCountsOnlyReleasedTransfers() {
+        UUID sender = createdAgo(Duration.ofDays(60));
+        // Aprovadas aqui, mas recusadas depois por saldo: não entram na janela
+        for (int i = 0; i < 5; i++) {
+            assertDecision(AuthorizationDecision.APPROVE, "low-value", sender, "100.00");
+        }
+
+        // Adiadas e aprovadas pelo autorizador remoto contam quando efetivadas
+        assertDecision(AuthorizationDecision.DEFER, "default", newcomer, "90.00");
+        assertDecision(AuthorizationDecision.DENY, "amount-limit", newcomer, "10000.01");
+        preAuthorizationService.recordReleased(newcomer, Money.parse("90.00"));
+        preAuthorizationService.recordReleased(newcomer, Money.parse("90.00"));
+        assertDecision(AuthorizationDecision.DEFER, "velocity", newcomer, "90.00");
+    }
+
+    @Test
+    void testRecordReleased_WaitsForCommit() {
+        UUID rolledBack = createdAgo(Duration.ofDays(60));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 3; i++) {
+                preAuthorizationService.recordReleased(rolledBack, Money.parse("10.00"));
+            }
+            assertDecision(AuthorizationDecision.APPROVE, "low-value", rolledBack, "10.00");
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertDecision(AuthorizationDecision.APPROVE, "low-value", rolledBack, "10.00");
+
+        UUID committed = createdAgo(Duration.ofDays(60));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 3; i++) {
+                preAuthorizationService.recordReleased(committed, Money.parse("10.00"));
+            }
+            assertDecision(AuthorizationDecision.APPROVE, "low-value", committed, "10.00");
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertDecision(AuthorizationDecision.DEFER, "velocity", committed, "10.00");
+    }
+
+    @Test
+    void testReload_AppliesChangesAndKeepsPreviousOnInvalidFile() throws Exception {
+        String version = preAuthorizationService.getRulesVersion();
+
+        write("{\"approveUpTo\": 1.00}");
+        preAuthorizationService.reload();
+        assertNotEquals(version, preAuthorizationService.getRulesVersion());
+        assertDecision(AuthorizationDecision.DEFER, "default", veteran, "50.00");
+        assertDecision(AuthorizationDecision.APPROVE, "low-value", newcomer, "1.00");
+
+        String valid = preAuthorizationService.getRulesVersion();
+        write("{\"aproveUpTo\": 1000.00}");
+        preAuthorizationService.reload();
+        assertEquals(valid, preAuthorizationService.getRulesVersion());
+
+        Files.delete(rulesFile);
+        preAuthorizationService.reload();
+        assertDecision(AuthorizationDecision.DEFER, "default", newcomer, "1.00");
+    }
+
+    private void assertDecision(AuthorizationDecision result, String rule, UUID sender, String value) {
+        assertEquals(new PreAuthorizationService.Decision(result, rule), preAuthorizationService.evaluate(sender, Money.parse(value)));
+    }
+
+    // Cada escrita ganha um mtime diferente, para o reload enxergar a mudança
+    private void write(String content) throws Exception {
+        Instant modifiedAt = Files.exists(rulesFile) ? Files.getLastModifiedTime(rulesFile).toInstant().plusSeconds(1) : Instant.now();
+        Files.writeString(rulesFile, content);
+        Files.setLastModifiedTime(rulesFile, FileTime.from(modifiedAt));
+    }
+
+    private static UUID createdAgo(Duration age) {
+        long millis = System.currentTimeMillis() - age.toMillis();
+        return new UUID(millis << 16 | 0x7000L, 0x8000000000000000L | System.nanoTime() & 0x3FFFFFFFFFFFFFFFL);
+    }
+}
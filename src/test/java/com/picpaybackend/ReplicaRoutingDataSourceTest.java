@@ -0,0 +1,106 @@
+package com.picpaybackend;
+
+import com.picpaybackend.infra.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT millis FROM replica_lag";
+
+    private DataSource primary;
+    private DataSource replica;
+    private JdbcTemplate replicaAdmin;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        replicaAdmin = new JdbcTemplate(replica);
+        replicaAdmin.execute("CREATE TABLE replica_lag (millis BIGINT)");
+        replicaAdmin.update("INSERT INTO replica_lag VALUES (0)");
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToReplica_WritesStayOnPrimary() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-0", replica));
+        routing.checkReplicas();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        assertEquals("replica", whereAmI(dataSource, true));
+        assertEquals("primary", whereAmI(dataSource, false));
+        assertEquals(0, routing.getLagMillis("replica-0"));
+    }
+
+    @Test
+    void testReplicaBehindMaxLag_FallsBackToPrimaryUntilItCatchesUp() {
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-0", replica));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        replicaAdmin.update("UPDATE replica_lag SET millis = 8000");
+        routing.checkReplicas();
+        assertFalse(routing.isHealthy("replica-0"));
+        assertEquals("primary", whereAmI(dataSource, true));
+
+        replicaAdmin.update("UPDATE replica_lag SET millis = 200");
+        routing.checkReplicas();
+        assertEquals("replica", whereAmI(dataSource, true));
+    }
+
+    @Test
+    void testUnreachableReplica_FallsBackToPrimaryAndLeavesRotation() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        ReplicaRoutingDataSource routing = routing(Map.of("replica-0", broken));
+        // A checagem passou, mas a réplica caiu antes da próxima
+        when(broken.getConnection()).thenReturn(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routing.checkReplicas();
+        assertTrue(routing.isHealthy("replica-0"));
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        assertEquals("primary", whereAmI(dataSource, true));
+        assertFalse(routing.isHealthy("replica-0"));
+        assertEquals(-1, routing.getLagMillis("replica-0"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        new JdbcTemplate(primary).execute("SHUTDOWN");
+        replicaAdmin.execute("SHUTDOWN");
+    }
+
+    private ReplicaRoutingDataSource routing(Map<String, DataSource> replicas) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(5), LAG_QUERY);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static String whereAmI(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> new JdbcTemplate(dataSource).queryForObject("SELECT name FROM node", String.class));
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbc.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+}
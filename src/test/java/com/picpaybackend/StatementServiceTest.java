@@ -0,0 +1,95 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.ledger.EntryDirection;
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.StatementEntryDTO;
+import com.picpaybackend.services.StatementService;
+import com.picpaybackend.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StatementServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserService userService;
+
+    private StatementService statementService;
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID counterpartyId = UUID.randomUUID();
+    private final LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        statementService = new StatementService(jdbcTemplate, userService, 1);
+    }
+
+    @Test
+    void testStreamStatement_RunningBalanceStartsFromOpeningBalance() throws Exception {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(accountId), eq(Timestamp.valueOf(from)))).thenReturn(10_000L);
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.getString("direction")).thenReturn("CREDIT", "DEBIT");
+        when(rows.getLong("amount")).thenReturn(2_550L, 12_000L);
+        when(rows.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(from.plusHours(1)), Timestamp.valueOf(from.plusHours(2)));
+        when(rows.getObject("transaction_id", UUID.class)).thenReturn(UUID.randomUUID());
+        when(rows.getObject("counterparty_id", UUID.class)).thenReturn(counterpartyId);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rows);
+            handler.processRow(rows);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        List<StatementEntryDTO> entries = new ArrayList<>();
+        statementService.streamStatement(accountId, from, null, entries::add);
+
+        assertEquals(2, entries.size());
+        assertEquals(Money.parse("25.50"), entries.get(0).amount());
+        assertEquals(Money.parse("125.50"), entries.get(0).balance());
+        assertEquals(EntryDirection.DEBIT, entries.get(1).direction());
+        assertEquals(Money.parse("-120.00"), entries.get(1).amount());
+        assertEquals(Money.parse("5.50"), entries.get(1).balance());
+        assertTrue(StatementService.toCsv(entries.get(1)).endsWith(",DEBIT,-120.00," + counterpartyId + ",5.50"));
+    }
+
+    @Test
+    void testReserveExport_LimitsConcurrentExports() {
+        Runnable release = statementService.reserveExport(accountId, null, null);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> statementService.reserveExport(accountId, null, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exception.getStatusCode());
+
+        release.run();
+        assertDoesNotThrow(() -> statementService.reserveExport(accountId, null, null));
+        verify(userService, times(3)).getProfile(accountId);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import com.picpaybackend.services.TransactionArchiveService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionArchiveServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private TransactionArchiveService archiveService;
+    private final UUID sender = UUID.randomUUID();
+    private final UUID receiver = UUID.randomUUID();
+    private final UUID other = UUID.randomUUID();
+    private final YearMonth month = YearMonth.of(2025, 3);
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new TransactionArchiveService(directory.toString());
+    }
+
+    @Test
+    void testArchive_WritesOnceAndReadsBackFilteredByUser() throws Exception {
+        List<TransactionSummaryDTO> rows = List.of(
+            new TransactionSummaryDTO(UUID.randomUUID(), Money.parse("25.50"), LocalDateTime.of(2025, 3, 1, 10, 0), false, sender, receiver),
+            new TransactionSummaryDTO(UUID.randomUUID(), Money.parse("7.00"), LocalDateTime.of(2025, 3, 2, 11, 30), true, other, sender),
+            new TransactionSummaryDTO(UUID.randomUUID(), Money.parse("1.00"), LocalDateTime.of(2025, 3, 3, 12, 0), false, other, receiver));
+
+        assertEquals(3, archiveService.archive(month, consumer -> rows.forEach(consumer)));
+
+        List<TransactionSummaryDTO> all = new ArrayList<>();
+        archiveService.readMonth(month, null, all::add);
+        assertEquals(rows, all);
+
+        List<TransactionSummaryDTO> senderOnly = new ArrayList<>();
+        archiveService.readMonth(month, sender, senderOnly::add);
+        assertEquals(rows.subList(0, 2), senderOnly);
+
+        assertEquals(List.of(month), archiveService.listMonths());
+        assertThrows(IllegalStateException.class, () -> archiveService.archive(month, consumer -> { }));
+        assertFalse(Files.getPosixFilePermissions(directory.resolve("transactions-2025-03.csv.gz"))
+            .contains(PosixFilePermission.OWNER_WRITE));
+    }
+
+    @Test
+    void testArchive_FailedWriteLeavesNothingPublished() {
+        assertThrows(RuntimeException.class, () -> archiveService.archive(month, consumer -> {
+            consumer.accept(new TransactionSummaryDTO(UUID.randomUUID(), Money.parse("1.00"),
+                LocalDateTime.of(2025, 3, 1, 0, 0), false, sender, receiver));
+            throw new IllegalStateException("conexão perdida");
+        }));
+
+        assertFalse(archiveService.isArchived(month));
+        assertThrows(EntityNotFoundException.class, () -> archiveService.requireArchived(month));
+    }
+}
@@ -0,0 +1,249 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.transaction.BatchItemStatus;
+import com.picpaybackend.domain.transaction.BatchMode;
+import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.user.User;
+import com.picpaybackend.dtos.BatchReversalDTO;
+import com.picpaybackend.dtos.BatchTransactionDTO;
+import com.picpaybackend.dtos.BatchTransactionResultDTO;
+import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.repositories.TransactionRepository;
+import com.picpaybackend.services.AuthorizationService;
+import com.picpaybackend.services.LedgerService;
+import com.picpaybackend.services.NotificationService;
+import com.picpaybackend.services.TransactionBatchService;
+import com.picpaybackend.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransactionBatchServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private TransactionRepository repository;
+
+    @Mock
+    private AuthorizationService authorizationService;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionBatchService batchService;
+    private User payer;
+    private User first;
+    private User second;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        batchService = new TransactionBatchService(userService, repository, authorizationService, notificationService, ledgerService,
+                new TransactionTemplate(transactionManager), 10, 2);
+        when(authorizationService.authorizeAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        payer = user("1000.00");
+        first = user("0.00");
+        second = user("0.00");
+        when(userService.lockExistingUsers(anyCollection())).thenReturn(Map.of(payer.getId(), payer));
+        when(userService.findExistingUsers(anyCollection())).thenReturn(Map.of(first.getId(), first, second.getId(), second));
+    }
+
+    @Test
+    void testCreateTransactions_AllOrNothingAppliesEveryItem() throws Exception {
+        BatchTransactionResultDTO result = batchService.createTransactions(new BatchTransactionDTO(List.of(
+                new TransactionDTO(Money.parse("300.00"), payer.getId(), first.getId()),
+                new TransactionDTO(Money.parse("200.00"), payer.getId(), second.getId())), BatchMode.ALL_OR_NOTHING));
+
+        assertEquals(2, result.applied());
+        assertEquals(0, result.rejected());
+        assertEquals(Money.parse("500.00"), payer.getBalance());
+        assertEquals(Money.parse("300.00"), first.getBalance());
+        verify(authorizationService, times(1)).authorizeAsync(payer.getId(), Money.parse("500.00"));
+        verify(userService, times(1)).lockExistingUsers(Set.of(payer.getId()));
+        verify(userService, times(1)).findExistingUsers(Set.of(first.getId(), second.getId()));
+        verify(repository, times(1)).saveAll(argThat((List<Transaction> saved) -> saved.size() == 2));
+        verify(ledgerService, times(1)).recordTransfers(argThat(saved -> saved.size() == 2));
+        verify(authorizationService, times(1)).recordReleased(payer.getId(), Money.parse("500.00"));
+        verify(notificationService, times(4)).enqueueNotification(any(User.class), anyString());
+    }
+
+    @Test
+    void testCreateTransactions_AllOrNothingAbortsOnRejectedItem() throws Exception {
+        doThrow(new Exception("Saldo insuficiente")).when(userService).validateTransaction(payer, Money.parse("900.00"));
+
+        BatchTransactionResultDTO result = batchService.createTransactions(new BatchTransactionDTO(List.of(
+                new TransactionDTO(Money.parse("300.00"), payer.getId(), first.getId()),
+                new TransactionDTO(Money.parse("900.00"), payer.getId(), second.getId())), BatchMode.ALL_OR_NOTHING));
+
+        assertEquals(0, result.applied());
+        assertEquals(BatchItemStatus.ABORTED, result.items().get(0).status());
+        assertEquals(BatchItemStatus.REJECTED, result.items().get(1).status());
+        assertEquals("Saldo insuficiente", result.items().get(1).error());
+        verify(repository, never()).saveAll(anyList());
+        verifyNoInteractions(ledgerService);
+        verify(authorizationService, never()).recordReleased(any(), any());
+        verify(notificationService, never()).enqueueNotification(any(User.class), anyString());
+    }
+
+    @Test
+    void testCreateTransactions_BestEffortSkipsInvalidAndUnauthorizedItems() throws Exception {
+        User denied = user("100.00");
+        when(userService.findExistingUsers(anyCollection())).thenReturn(Map.of(first.getId(), first));
+        when(authorizationService.authorizeAsync(eq(denied.getId()), any(Money.class)))
+                .thenReturn(CompletableFuture.failedFuture(new HttpClientErrorException(HttpStatus.FORBIDDEN)));
+
+        BatchTransactionResultDTO result = batchService.createTransactions(new BatchTransactionDTO(List.of(
+                new TransactionDTO(Money.parse("300.00"), payer.getId(), first.getId()),
+                new TransactionDTO(Money.parse("-1.00"), payer.getId(), second.getId()),
+                new TransactionDTO(Money.parse("50.00"), denied.getId(), first.getId())), BatchMode.BEST_EFFORT));
+
+        assertEquals(1, result.applied());
+        assertEquals(2, result.rejected());
+        assertEquals(BatchItemStatus.APPLIED, result.items().get(0).status());
+        assertEquals("Transação inválida", result.items().get(1).error());
+        assertEquals("Transação não autorizada", result.items().get(2).error());
+        assertEquals(Money.parse("700.00"), payer.getBalance());
+        verify(repository, times(1)).saveAll(argThat((List<Transaction> saved) -> saved.size() == 1));
+        verify(authorizationService, times(1)).recordReleased(payer.getId(), Money.parse("300.00"));
+        verify(authorizationService, never()).recordReleased(eq(denied.getId()), any());
+    }
+
+    @Test
+    void testCreateTransactions_AuthorizesSendersConcurrentlyBeforeTransaction() throws Exception {
+        User other = user("100.00");
+        when(userService.lockExistingUsers(anyCollection())).thenReturn(Map.of(payer.getId(), payer, other.getId(), other));
+        // A autorização do primeiro só termina quando a do segundo já foi pedida: em série, o lote travaria
+        CompletableFuture<Void> payerAuthorization = new CompletableFuture<>();
+        when(authorizationService.authorizeAsync(eq(payer.getId()), any(Money.class))).thenReturn(payerAuthorization);
+        when(authorizationService.authorizeAsync(eq(other.getId()), any(Money.class))).thenAnswer(invocation -> {
+            payerAuthorization.complete(null);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        BatchTransactionResultDTO result = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                batchService.createTransactions(new BatchTransactionDTO(List.of(
+                        new TransactionDTO(Money.parse("10.00"), payer.getId(), first.getId()),
+                        new TransactionDTO(Money.parse("20.00"), other.getId(), second.getId())), BatchMode.ALL_OR_NOTHING)));
+
+        assertEquals(2, result.applied());
+        // Nenhuma conexão nem lock é tomado enquanto o autorizador responde
+        InOrder order = inOrder(authorizationService, transactionManager, userService);
+        order.verify(authorizationService, times(2)).authorizeAsync(any(), any());
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(userService).lockExistingUsers(anyCollection());
+    }
+
+    @Test
+    void testCreateTransactions_RejectsOversizedBatch() {
+        List<TransactionDTO> items = Collections.nCopies(11, new TransactionDTO(Money.ofMajor(1), payer.getId(), first.getId()));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> batchService.createTransactions(new BatchTransactionDTO(items, BatchMode.BEST_EFFORT)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(authorizationService, repository);
+    }
+
+    @Test
+    void testRevertTransactions_BestEffortLocksOnceAndReportsEachItem() throws Exception {
+        Transaction firstSale = sale(first, "300.00");
+        Transaction secondSale = sale(second, "200.00");
+        Transaction alreadyReversed = sale(first, "50.00");
+        alreadyReversed.setReversed(true);
+        UUID missing = UUID.randomUUID();
+        first.setBalance(Money.parse("300.00"));
+        second.setBalance(Money.parse("200.00"));
+        when(repository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(firstSale, secondSale, alreadyReversed));
+        when(userService.lockExistingUsers(anyCollection())).thenReturn(Map.of(first.getId(), first, second.getId(), second));
+        when(userService.findExistingUsers(anyCollection())).thenReturn(Map.of(payer.getId(), payer));
+
+        BatchTransactionResultDTO result = batchService.revertTransactions(new BatchReversalDTO(List.of(
+                firstSale.getId(), secondSale.getId(), alreadyReversed.getId(), missing, firstSale.getId()), BatchMode.BEST_EFFORT));
+
+        assertEquals(2, result.applied());
+        assertEquals(3, result.rejected());
+        assertEquals("Esta transação já foi revertida.", result.items().get(2).error());
+        assertEquals("Transação não encontrado com o ID: " + missing, result.items().get(3).error());
+        assertEquals("Transação repetida no lote", result.items().get(4).error());
+        assertTrue(firstSale.isReversed());
+        assertTrue(secondSale.isReversed());
+        assertEquals(Money.parse("1500.00"), payer.getBalance());
+        assertEquals(Money.ZERO, first.getBalance());
+        // As contas debitadas na reversão são os destinatários originais
+        verify(repository, times(1)).findAllByIdForUpdate(Set.of(firstSale.getId(), secondSale.getId(), alreadyReversed.getId(), missing));
+        verify(userService, times(1)).lockExistingUsers(Set.of(first.getId(), second.getId()));
+        verify(userService, times(1)).findExistingUsers(Set.of(payer.getId()));
+        verify(repository, times(1)).saveAll(argThat((List<Transaction> saved) -> saved.size() == 2));
+        verify(ledgerService, times(1)).recordTransfers(argThat(saved -> saved.size() == 2));
+        verify(notificationService, times(4)).enqueueNotification(any(User.class), anyString());
+        verifyNoInteractions(authorizationService);
+    }
+
+    @Test
+    void testRevertTransactions_AllOrNothingLeavesOriginalsUntouched() {
+        Transaction firstSale = sale(first, "300.00");
+        Transaction secondSale = sale(first, "200.00");
+        first.setBalance(Money.parse("400.00"));
+        when(repository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(firstSale, secondSale));
+        when(userService.lockExistingUsers(anyCollection())).thenReturn(Map.of(first.getId(), first));
+        when(userService.findExistingUsers(anyCollection())).thenReturn(Map.of(payer.getId(), payer));
+
+        BatchTransactionResultDTO result = batchService.revertTransactions(new BatchReversalDTO(List.of(
+                firstSale.getId(), secondSale.getId()), BatchMode.ALL_OR_NOTHING));
+
+        assertEquals(0, result.applied());
+        assertEquals(BatchItemStatus.ABORTED, result.items().get(0).status());
+        assertEquals("O destinatário não tem saldo suficiente para devolver o valor", result.items().get(1).error());
+        assertFalse(firstSale.isReversed());
+        verify(repository, never()).saveAll(anyList());
+        verifyNoInteractions(ledgerService);
+    }
+
+    private Transaction sale(User receiver, String amount) {
+        return new Transaction(UUID.randomUUID(), Money.parse(amount), payer, receiver, LocalDateTime.now());
+    }
+
+    private static User user(String balance) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setBalance(Money.parse(balance));
+        return user;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+}
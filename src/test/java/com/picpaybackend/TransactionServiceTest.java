@@ -1,29 +1,38 @@
 package com.picpaybackend;
 
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.domain.transaction.Transaction;
+import com.picpaybackend.domain.transaction.TransactionDirection;
 import com.picpaybackend.domain.user.User;
 import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.dtos.CursorPageDTO;
 import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
 import com.picpaybackend.repositories.TransactionRepository;
+import com.picpaybackend.services.AuthorizationService;
+import com.picpaybackend.services.LedgerService;
 import com.picpaybackend.services.NotificationService;
 import com.picpaybackend.services.TransactionService;
 import com.picpaybackend.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -41,10 +50,13 @@ class TransactionServiceTest {
     private NotificationService notificationService;
 
     @Mock
-    private RestTemplate restTemplate;
+    private AuthorizationService authorizationService;
+
+    @Mock
+    private LedgerService ledgerService;
 
-    @InjectMocks
     private TransactionService transactionService;
+    private SimpleMeterRegistry meterRegistry;
 
     private User sender;
     private User receiver;
@@ -55,16 +67,19 @@ class TransactionServiceTest {
     @BeforeEach
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        transactionService = new TransactionService(userService, repository, authorizationService, notificationService,
+                ledgerService, meterRegistry);
 
         sender = new User();
         sender.setId(UUID.randomUUID());
-        sender.setBalance(new BigDecimal("1000.00"));
+        sender.setBalance(Money.parse("1000.00"));
 
         receiver = new User();
         receiver.setId(UUID.randomUUID());
-        receiver.setBalance(new BigDecimal("500.00"));
+        receiver.setBalance(Money.parse("500.00"));
 
-        transactionDTO = new TransactionDTO(new BigDecimal("200.00"), sender.getId(), receiver.getId());
+        transactionDTO = new TransactionDTO(Money.parse("200.00"), sender.getId(), receiver.getId());
 
         logger.info("Configuração de teste concluída para o transactions");
     }
@@ -73,20 +88,11 @@ class TransactionServiceTest {
     void testCreateTransaction_Success() throws Exception {
         logger.info("Iniciando teste de transação bem-sucedida...");
 
-        when(userService.findUserById(sender.getId())).thenReturn(sender);
+        when(userService.lockUsers(List.of(sender.getId()))).thenReturn(Map.of(sender.getId(), sender));
         when(userService.findUserById(receiver.getId())).thenReturn(receiver);
         doNothing().when(userService).validateTransaction(sender, transactionDTO.value());
 
-        Map<String, Object> mockResponse = Map.of(
-                "status", "success",
-                "data", Map.of("authorization", true)
-        );
-        ResponseEntity<Map> responseEntity = ResponseEntity.ok(mockResponse);
-
-        when(restTemplate.getForEntity(anyString(), eq(Map.class)))
-                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR))
-                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR))
-                .thenReturn(responseEntity);
+        doNothing().when(authorizationService).authorize(sender.getId(), transactionDTO.value());
 
         Transaction transaction = transactionService.createTransaction(transactionDTO);
         when(repository.save(any(Transaction.class))).thenReturn(transaction);
@@ -95,32 +101,40 @@ class TransactionServiceTest {
         assertEquals(sender, transaction.getSender());
         assertEquals(receiver, transaction.getReceiver());
         assertEquals(transactionDTO.value(), transaction.getAmount());
+        assertEquals(Money.parse("800.00"), sender.getBalance());
+        assertEquals(Money.parse("700.00"), receiver.getBalance());
 
         logger.info("Transação concluída com sucesso!");
 
-        verify(userService, times(1)).findUserById(sender.getId());
-        verify(userService, times(1)).findUserById(receiver.getId());
+        // Só o remetente é travado; o destinatário recebe um lançamento de crédito
+        verify(userService, times(1)).lockUsers(List.of(sender.getId()));
         verify(userService, times(1)).validateTransaction(sender, transactionDTO.value());
-        verify(restTemplate, atMost(3)).getForEntity(anyString(), eq(Map.class));
+        verify(userService, times(1)).validateSender(sender.getId());
+        verify(authorizationService, times(1)).authorize(sender.getId(), transactionDTO.value());
         verify(repository, times(1)).save(any(Transaction.class));
-        verify(notificationService, times(1)).sendNotification(sender, "Transação concluída com sucesso");
-        verify(notificationService, times(1)).sendNotification(receiver, "Transação concluída com sucesso");
+        verify(ledgerService, times(1)).recordTransfer(transaction);
+        verify(authorizationService, times(1)).recordReleased(sender.getId(), transactionDTO.value());
+        verify(notificationService, times(1)).enqueueNotification(sender, "Transação concluída com sucesso");
+        verify(notificationService, times(1)).enqueueNotification(receiver, "Transação concluída com sucesso");
+        verify(notificationService, never()).sendNotification(any(User.class), anyString());
+
+        for (String stage : List.of("sender-check", "authorize", "lock", "validate", "save", "notify")) {
+            assertEquals(1, meterRegistry.get("transaction.stage")
+                    .tags("operation", "create", "stage", stage, "outcome", "success").timer().count(), stage);
+        }
     }
 
     @Test
     void testCreateTransaction_FailureUnauthorized() throws Exception {
         logger.info("Iniciando teste de transação não autorizada...");
 
-        when(userService.findUserById(sender.getId())).thenReturn(sender);
-        when(userService.findUserById(receiver.getId())).thenReturn(receiver);
-        doNothing().when(userService).validateTransaction(any(User.class), any(BigDecimal.class));
+        doNothing().when(userService).validateTransaction(any(User.class), any(Money.class));
 
-        Map<String, Object> mockResponse = Map.of(
-                "status", "failure",
-                "data", Map.of("authorization", false)
-        );
-        ResponseEntity<Map> responseEntity = ResponseEntity.ok(mockResponse);
-        when(restTemplate.getForEntity(anyString(), eq(Map.class))).thenReturn(responseEntity);
+        doThrow(new HttpClientErrorException(HttpStatus.FORBIDDEN,
+                "Transação não autorizada",
+                "{\"message\": \"Transação não autorizada\"}".getBytes(StandardCharsets.UTF_8),
+                StandardCharsets.UTF_8))
+                .when(authorizationService).authorize(any(UUID.class), any(Money.class));
 
         HttpClientErrorException exception = assertThrows(HttpClientErrorException.class,
                 () -> transactionService.createTransaction(transactionDTO));
@@ -130,28 +144,138 @@ class TransactionServiceTest {
         assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
         assertTrue(exception.getResponseBodyAsString().contains("Transação não autorizada"));
 
+        verify(userService, never()).lockUsers(anyList());
         verify(repository, never()).save(any(Transaction.class));
-        verify(notificationService, never()).sendNotification(any(User.class), anyString());
+        verifyNoInteractions(ledgerService);
+        verify(notificationService, never()).enqueueNotification(any(User.class), anyString());
+
+        // A etapa que falhou fica registrada como erro; as seguintes nem começam
+        assertEquals(1, meterRegistry.get("transaction.stage")
+                .tags("operation", "create", "stage", "authorize", "outcome", "error").timer().count());
+        assertNull(meterRegistry.find("transaction.stage").tags("stage", "lock").timer());
     }
 
     @Test
-    void testAuthorizeTransaction_AuthorizationNotPresent() {
-        logger.info("Iniciando teste de autorização ausente...");
+    void testCreateTransaction_MerchantRejectedBeforeLocking() throws Exception {
+        doThrow(new Exception("Logista não está autorizado a realizar transações"))
+                .when(userService).validateSender(sender.getId());
 
-        Map<String, Object> mockResponse = Map.of(
-                "status", "success",
-                "data", Map.of("someOtherKey", true)
-        );
-        ResponseEntity<Map> responseEntity = ResponseEntity.ok(mockResponse);
-        when(restTemplate.getForEntity(anyString(), eq(Map.class))).thenReturn(responseEntity);
+        Exception exception = assertThrows(Exception.class, () -> transactionService.createTransaction(transactionDTO));
 
-        HttpClientErrorException exception = assertThrows(HttpClientErrorException.class,
-                () -> transactionService.authorizeTransaction(sender, BigDecimal.TEN));
+        assertEquals("Logista não está autorizado a realizar transações", exception.getMessage());
+        verify(authorizationService, never()).authorize(any(UUID.class), any(Money.class));
+        verify(userService, never()).lockUsers(anyList());
+    }
 
-        logger.info("Mensagem da exceção: " + exception.getResponseBodyAsString());
+    @Test
+    void testCreateTransaction_RejectsSelfTransferLikeBatch() throws Exception {
+        Exception exception = assertThrows(Exception.class, () -> transactionService.createTransaction(
+                new TransactionDTO(Money.parse("10.00"), sender.getId(), sender.getId())));
 
-        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
-        assertTrue(exception.getResponseBodyAsString().contains("Transação não autorizada"));
+        assertEquals("Transação inválida", exception.getMessage());
+        verify(authorizationService, never()).authorize(any(UUID.class), any(Money.class));
+        verify(userService, never()).lockUsers(anyList());
+        verify(repository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void testCreateTransaction_InsufficientBalanceDoesNotCountTowardVelocity() throws Exception {
+        when(userService.lockUsers(List.of(sender.getId()))).thenReturn(Map.of(sender.getId(), sender));
+        when(userService.findUserById(receiver.getId())).thenReturn(receiver);
+        doThrow(new Exception("Saldo insuficiente")).when(userService).validateTransaction(sender, transactionDTO.value());
+
+        Exception exception = assertThrows(Exception.class, () -> transactionService.createTransaction(transactionDTO));
+
+        assertEquals("Saldo insuficiente", exception.getMessage());
+        verify(authorizationService, times(1)).authorize(sender.getId(), transactionDTO.value());
+        verify(authorizationService, never()).recordReleased(any(UUID.class), any(Money.class));
+        verify(repository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void testRevertTransaction_ReadsOnceUnderLockAndRejectsSecondReversal() throws Exception {
+        Transaction original = new Transaction(UUID.randomUUID(), Money.parse("200.00"), sender, receiver, LocalDateTime.now());
+        when(repository.findByIdForUpdate(original.getId())).thenReturn(Optional.of(original));
+        when(userService.lockUsers(List.of(receiver.getId()))).thenReturn(Map.of(receiver.getId(), receiver));
+        when(userService.findUserById(sender.getId())).thenReturn(sender);
+
+        transactionService.revertTransaction(original.getId());
+
+        assertTrue(original.isReversed());
+        assertEquals(Money.parse("1200.00"), sender.getBalance());
+        assertEquals(Money.parse("300.00"), receiver.getBalance());
+
+        Exception exception = assertThrows(Exception.class, () -> transactionService.revertTransaction(original.getId()));
+        assertEquals("Esta transação já foi revertida.", exception.getMessage());
+        verify(repository, times(2)).findByIdForUpdate(original.getId());
+        verify(repository, never()).findTransactionsById(any(UUID.class));
+        verify(ledgerService, times(1)).recordTransfer(any(Transaction.class));
+    }
+
+    @Test
+    void testGetTransactionsPage_WithParties() {
+        logger.info("Testando listagem paginada com as partes da transação...");
+
+        TransactionSummaryDTO summary = new TransactionSummaryDTO(UUID.randomUUID(), Money.parse("200.00"), LocalDateTime.now(), false,
+                sender.getId(), "Ana", "Silva", UserType.COMMON, receiver.getId(), "Loja", "Centro", UserType.MERCHANT);
+        when(repository.findSummaryWithPartiesFirstPage(Limit.of(51))).thenReturn(List.of(summary));
+
+        CursorPageDTO<TransactionSummaryDTO> page = transactionService.getTransactionsPage(null, 50, true);
+
+        assertEquals(List.of(summary), page.items());
+        assertNull(page.nextCursor());
+        assertEquals(UserType.MERCHANT, page.items().get(0).receiver().userType());
+        verify(repository, never()).findSummaryFirstPage(any(Limit.class));
+    }
+
+    @Test
+    void testGetUserTransactionsPage_AllMergesBothIndexesNewestFirst() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        UUID userId = sender.getId();
+        TransactionSummaryDTO sentNewest = summary(now, userId, receiver.getId());
+        TransactionSummaryDTO self = summary(now.minusMinutes(1), userId, userId);
+        TransactionSummaryDTO receivedOld = summary(now.minusMinutes(2), receiver.getId(), userId);
+        when(repository.findSentPage(eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(UUID.class), eq(Limit.of(3))))
+                .thenReturn(List.of(sentNewest, self));
+        when(repository.findReceivedPage(eq(userId), any(LocalDateTime.class), any(LocalDateTime.class), any(UUID.class), eq(Limit.of(3))))
+                .thenReturn(List.of(self, receivedOld));
+
+        CursorPageDTO<TransactionSummaryDTO> page = transactionService.getUserTransactionsPage(userId, TransactionDirection.ALL,
+                null, null, null, 2);
+
+        // A transferência para si mesmo vem dos dois índices e aparece uma vez
+        assertEquals(List.of(sentNewest, self), page.items());
+        assertNotNull(page.nextCursor());
+        verify(userService, times(1)).getProfile(userId);
+
+        transactionService.getUserTransactionsPage(userId, TransactionDirection.SENT, null, null, page.nextCursor(), 2);
+        verify(repository, times(1)).findSentPage(userId, LocalDateTime.of(1970, 1, 1, 0, 0), self.timestamp(), self.id(), Limit.of(3));
+    }
+
+    @Test
+    void testGetUserTransactionsPage_RejectsEmptyPeriod() {
+        LocalDateTime day = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> transactionService.getUserTransactionsPage(sender.getId(), TransactionDirection.SENT, day, day, null, 50));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(repository);
+    }
+
+    private static TransactionSummaryDTO summary(LocalDateTime timestamp, UUID senderId, UUID receiverId) {
+        return new TransactionSummaryDTO(UUID.randomUUID(), Money.parse("10.00"), timestamp, false, senderId, receiverId);
+    }
+
+    @Test
+    void testGetTransactionSummary_NotFound() {
+        UUID id = UUID.randomUUID();
+        when(repository.findSummaryById(id)).thenReturn(Optional.empty());
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> transactionService.getTransactionSummary(id, false));
+
+        assertEquals("Transação não encontrado com o ID: " + id, exception.getMessage());
     }
 
     @Test
@@ -160,9 +284,9 @@ class TransactionServiceTest {
 
         sender.setUserType(UserType.MERCHANT);
         doThrow(new Exception("Logista não está autorizado a realizar transações"))
-                .when(userService).validateTransaction(any(User.class), any(BigDecimal.class));
+                .when(userService).validateTransaction(any(User.class), any(Money.class));
 
-        Exception exception = assertThrows(Exception.class, () -> userService.validateTransaction(sender, new BigDecimal(100)));
+        Exception exception = assertThrows(Exception.class, () -> userService.validateTransaction(sender, Money.ofMajor(100)));
 
         logger.info("Exceção capturada: " + exception.getMessage());
 
@@ -173,11 +297,11 @@ class TransactionServiceTest {
     void testValidateTransactionThrowsExceptionForInsufficientBalance() throws Exception {
         logger.info("Testando validação de saldo insuficiente...");
 
-        sender.setBalance(new BigDecimal("30.00"));
+        sender.setBalance(Money.parse("30.00"));
         doThrow(new Exception("Saldo insuficiente"))
-                .when(userService).validateTransaction(any(User.class), any(BigDecimal.class));
+                .when(userService).validateTransaction(any(User.class), any(Money.class));
 
-        Exception exception = assertThrows(Exception.class, () -> userService.validateTransaction(sender, new BigDecimal("50.00")));
+        Exception exception = assertThrows(Exception.class, () -> userService.validateTransaction(sender, Money.parse("50.00")));
 
         logger.info("Exceção capturada: " + exception.getMessage());
 
@@ -0,0 +1,196 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.money.Money;
+import com.picpaybackend.domain.user.UserProfile;
+import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.dtos.TransactionDTO;
+import com.picpaybackend.dtos.TransactionSummaryDTO;
+import com.picpaybackend.infra.TransferEngineProperties;
+import com.picpaybackend.infra.TransferJournal;
+import com.picpaybackend.services.AuthorizationService;
+import com.picpaybackend.services.LedgerService;
+import com.picpaybackend.services.TransferEngine;
+import com.picpaybackend.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TransferEngineTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private AuthorizationService authorizationService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    private AutoCloseable mocks;
+    private TransferEngine engine;
+    private final UUID sender = UUID.randomUUID();
+    private final UUID receiver = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(userService.getProfile(any())).thenAnswer(invocation ->
+            new UserProfile(invocation.getArgument(0), UserType.COMMON, "user@email.com", "123"));
+        when(ledgerService.currentBalance(sender)).thenReturn(Optional.of(Money.parse("100.00")));
+        when(ledgerService.currentBalance(receiver)).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (engine != null) {
+            engine.stop();
+        }
+        mocks.close();
+    }
+
+    @Test
+    void testTransfer_AppliesAndRejectsInsufficientFunds() throws Exception {
+        engine = start(1_000_000);
+
+        TransactionSummaryDTO summary = engine.transfer(new TransactionDTO(Money.parse("30.00"), sender, receiver));
+
+        assertEquals(Money.parse("30.00"), summary.amount());
+        assertEquals(sender, summary.senderId());
+        assertEquals(7, summary.id().version());
+        assertEquals(Optional.of(Money.parse("70.00")), engine.balance(sender));
+        assertEquals(Optional.of(Money.parse("30.00")), engine.balance(receiver));
+        verify(authorizationService).authorize(sender, Money.parse("30.00"));
+        verify(authorizationService).recordReleased(sender, Money.parse("30.00"));
+
+        Exception exception = assertThrows(Exception.class,
+            () -> engine.transfer(new TransactionDTO(Money.parse("80.00"), sender, receiver)));
+        assertEquals("Saldo insuficiente", exception.getMessage());
+        assertEquals(Optional.of(Money.parse("70.00")), engine.balance(sender));
+        verify(authorizationService, never()).recordReleased(sender, Money.parse("80.00"));
+        assertEquals("Transação inválida", assertThrows(Exception.class,
+            () -> engine.transfer(new TransactionDTO(Money.parse("1.00"), sender, sender))).getMessage());
+        // Contas abertas uma vez só; o saldo inicial vem do ledger
+        verify(ledgerService, times(1)).currentBalance(sender);
+        assertEquals(Optional.empty(), engine.balance(UUID.randomUUID()));
+    }
+
+    @Test
+    void testTransfer_TimeoutLeavesTransferPollableById() throws Exception {
+        // Prazo zero: a resposta nunca sai a tempo, mas a transferência continua na fila
+        engine = start(1_000_000, Duration.ZERO);
+
+        TransferEngine.PendingTransferException pending = assertThrows(TransferEngine.PendingTransferException.class,
+            () -> engine.transfer(new TransactionDTO(Money.parse("30.00"), sender, receiver)));
+        TransactionSummaryDTO summary = awaitResolved(pending.getTransactionId());
+        assertEquals(pending.getTransactionId(), summary.id());
+        assertEquals(Money.parse("30.00"), summary.amount());
+
+        TransferEngine.PendingTransferException rejected = assertThrows(TransferEngine.PendingTransferException.class,
+            () -> engine.transfer(new TransactionDTO(Money.parse("80.00"), sender, receiver)));
+        Exception exception = assertThrows(Exception.class, () -> awaitResolved(rejected.getTransactionId()));
+        assertEquals("Saldo insuficiente", exception.getMessage());
+
+        assertEquals(Optional.empty(), engine.unresolvedTransfer(UUID.randomUUID()));
+    }
+
+    @Test
+    void testRestart_RecoversFromSnapshotAndJournal() throws Exception {
+        engine = start(5);
+        for (int i = 0; i < 20; i++) {
+            engine.transfer(new TransactionDTO(Money.parse("1.00"), sender, receiver));
+        }
+        engine.transfer(new TransactionDTO(Money.parse("5.00"), receiver, sender));
+        long durable = engine.durableSequence();
+        engine.stop();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(path -> path.getFileName().toString().startsWith("snapshot-")));
+        }
+
+        // O saldo do banco mudou, mas a conta já está no engine: não é lido de novo
+        when(ledgerService.currentBalance(sender)).thenReturn(Optional.of(Money.parse("999.00")));
+        engine = start(5);
+
+        assertEquals(durable, engine.durableSequence());
+        assertEquals(Optional.of(Money.parse("85.00")), engine.balance(sender));
+        assertEquals(Optional.of(Money.parse("15.00")), engine.balance(receiver));
+        verify(ledgerService, times(1)).currentBalance(sender);
+    }
+
+    @Test
+    void testRestart_DiscardsTornTailAndKeepsSequence() throws Exception {
+        engine = start(1_000_000);
+        for (int i = 0; i < 3; i++) {
+            engine.transfer(new TransactionDTO(Money.parse("10.00"), sender, receiver));
+        }
+        // OPEN, OPEN e três transferências
+        assertEquals(5, engine.durableSequence());
+        engine.stop();
+
+        // Simula a última escrita interrompida no meio do registro
+        Path segment = directory.resolve(String.format("journal-%020d.log", 1));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), 4L * TransferJournal.RECORD_SIZE + 64);
+        }
+
+        engine = start(1_000_000);
+        assertEquals(4, engine.durableSequence());
+        assertEquals(Optional.of(Money.parse("80.00")), engine.balance(sender));
+
+        engine.transfer(new TransactionDTO(Money.parse("10.00"), sender, receiver));
+        engine.stop();
+
+        engine = start(1_000_000);
+        assertEquals(5, engine.durableSequence());
+        assertEquals(Optional.of(Money.parse("70.00")), engine.balance(sender));
+        assertEquals(Optional.of(Money.parse("30.00")), engine.balance(receiver));
+    }
+
+    private TransactionSummaryDTO awaitResolved(UUID transactionId) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (true) {
+            try {
+                return engine.unresolvedTransfer(transactionId).orElseThrow();
+            } catch (TransferEngine.PendingTransferException e) {
+                if (System.nanoTime() > deadline) {
+                    throw e;
+                }
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private TransferEngine start(long snapshotEvery) throws Exception {
+        return start(snapshotEvery, Duration.ofSeconds(5));
+    }
+
+    // Segmentos de 8 registros, para a recuperação atravessar vários arquivos
+    private TransferEngine start(long snapshotEvery, Duration timeout) throws Exception {
+        TransferEngineProperties properties = new TransferEngineProperties(true, directory.toString(), 1024, 64,
+            8L * TransferJournal.RECORD_SIZE, snapshotEvery, 16, Duration.ofMillis(20), 100, timeout, Duration.ofMinutes(1));
+        TransferEngine started = new TransferEngine(userService, authorizationService, ledgerService, properties, new SimpleMeterRegistry());
+        started.start();
+        return started;
+    }
+}
@@ -0,0 +1,73 @@
+package com.picpaybackend;
+
+import com.picpaybackend.infra.TransferRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferRingTest {
+
+    @Test
+    void testOffer_FailsWhenFullAndRecoversAfterDrain() {
+        TransferRing<Integer> ring = new TransferRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, ring.drain(drained::add, 2));
+        assertTrue(ring.offer(4));
+        assertEquals(3, ring.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void testDrain_MultipleProducersNoLossAndOrderPerProducer() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        TransferRing<long[]> ring = new TransferRing<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        long[] item = {producer, i};
+                        while (!ring.offer(item)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                }));
+            }
+
+            long[] next = new long[producers];
+            int[] received = new int[1];
+            while (received[0] < producers * perProducer) {
+                ring.drain(item -> {
+                    int producer = (int) item[0];
+                    assertEquals(next[producer], item[1], "fora de ordem no produtor " + producer);
+                    next[producer]++;
+                    received[0]++;
+                }, 256);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            for (long count : next) {
+                assertEquals(perProducer, count);
+            }
+            assertEquals(0, ring.drain(item -> fail("item a mais"), 10));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.picpaybackend;
+
+import com.picpaybackend.domain.user.UserProfile;
+import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.repositories.UserRepository;
+import com.picpaybackend.services.UserProfileCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserProfileCacheTest {
+
+    @Mock
+    private UserRepository repository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserProfileCache profileCache;
+    private UserProfile profile;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        profileCache = new UserProfileCache(repository, meterRegistry, 100, 60_000);
+        profile = new UserProfile(UUID.randomUUID(), UserType.COMMON, "ana@email.com", "123");
+        when(repository.findProfileById(profile.id())).thenReturn(Optional.of(profile));
+    }
+
+    @Test
+    void testGet_LoadsOnceAndRecordsHits() {
+        assertEquals(Optional.of(profile), profileCache.get(profile.id()));
+        assertEquals(Optional.of(profile), profileCache.get(profile.id()));
+
+        verify(repository, times(1)).findProfileById(profile.id());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userProfiles").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "userProfiles").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testInvalidate_ReloadsProfile() {
+        profileCache.get(profile.id());
+        profileCache.invalidate(profile.id());
+        profileCache.get(profile.id());
+
+        verify(repository, times(2)).findProfileById(profile.id());
+    }
+
+    @Test
+    void testGet_MissingUserIsNotCached() {
+        UUID missing = UUID.randomUUID();
+        when(repository.findProfileById(missing)).thenReturn(Optional.empty());
+
+        assertTrue(profileCache.get(missing).isEmpty());
+        assertTrue(profileCache.get(missing).isEmpty());
+
+        verify(repository, times(2)).findProfileById(missing);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+}
@@ -1,9 +1,15 @@
 package com.picpaybackend;
 
+import com.picpaybackend.domain.money.Money;
 import com.picpaybackend.domain.user.User;
+import com.picpaybackend.domain.user.UserProfile;
 import com.picpaybackend.domain.user.UserType;
+import com.picpaybackend.dtos.CursorPageDTO;
 import com.picpaybackend.dtos.UserDTO;
+import com.picpaybackend.infra.AccountLockManager;
 import com.picpaybackend.repositories.UserRepository;
+import com.picpaybackend.services.LedgerService;
+import com.picpaybackend.services.UserProfileCache;
 import com.picpaybackend.services.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.AfterEach;
@@ -14,10 +20,16 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -33,6 +45,15 @@ public class UserServiceTest {
     @Mock
     private UserRepository repository; // Mock do repositório de usuários
 
+    @Mock
+    private AccountLockManager accountLockManager; // Mock do gerenciador de locks de conta
+
+    @Mock
+    private UserProfileCache profileCache; // Mock do cache de perfis de usuário
+
+    @Mock
+    private LedgerService ledgerService; // Mock do ledger, de onde vêm os saldos
+
     @InjectMocks
     private UserService userService; // Serviço de usuário que será testado
 
@@ -50,7 +71,7 @@ public class UserServiceTest {
             "Matheus",
             "Lima",
             "1234567890",
-            new BigDecimal(1000),
+            Money.ofMajor(1000),
             "matheus@hotmail.com",
             "123",
             UserType.COMMON
@@ -85,6 +106,16 @@ public class UserServiceTest {
         logger.info("Teste testFindUserById concluído com sucesso.");
     }
 
+    @Test
+    void testFindUserById_BalanceFromLedger() {
+        when(repository.findUserById(user.getId())).thenReturn(Optional.of(user));
+        when(ledgerService.currentBalances(List.of(user.getId()))).thenReturn(Map.of(user.getId(), Money.parse("42.50")));
+
+        User foundUser = userService.findUserById(user.getId());
+
+        assertEquals(Money.parse("42.50"), foundUser.getBalance());
+    }
+
     @Test
     void testFindUserById_UserNotFound() {
         logger.info("Executando o teste testFindUserById_UserNotFound...");
@@ -109,6 +140,46 @@ public class UserServiceTest {
         logger.error("Usuário não encontrado: {}", user.getId());
     }
 
+    @Test
+    void testLockUsers() {
+        logger.info("Executando o teste testLockUsers...");
+
+        User other = new User();
+        other.setId(UUID.fromString("ffbd4db2-787b-4c9a-ad61-5a12c23c8096"));
+        List<UUID> ordered = List.of(user.getId(), other.getId());
+
+        // Configura o mock para devolver os usuários travados na ordem canônica
+        when(repository.findAllByIdForUpdate(ordered)).thenReturn(List.of(user, other));
+
+        // Os IDs são informados fora de ordem
+        Map<UUID, User> users = userService.lockUsers(List.of(other.getId(), user.getId()));
+
+        // Validações
+        assertEquals(user, users.get(user.getId()));
+        assertEquals(other, users.get(other.getId()));
+
+        // Verifica se o lock em memória e o do banco usaram a mesma ordem
+        verify(accountLockManager, times(1)).lockForCurrentTransaction(ordered);
+        verify(repository, times(1)).findAllByIdForUpdate(ordered);
+
+        logger.info("Teste testLockUsers concluído com sucesso.");
+    }
+
+    @Test
+    void testLockUsers_UserNotFound() {
+        logger.info("Executando o teste testLockUsers_UserNotFound...");
+
+        // Configura o mock para não encontrar o usuário
+        when(repository.findAllByIdForUpdate(List.of(user.getId()))).thenReturn(List.of());
+
+        // Espera-se que uma exceção seja lançada
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+            () -> userService.lockUsers(List.of(user.getId())));
+
+        // Validações da exceção
+        assertEquals("Usuário não encontrado com o ID: " + user.getId(), exception.getMessage());
+    }
+
     @Test
     void testCreateUser() {
         logger.info("Executando o teste testCreateUser...");
@@ -124,31 +195,62 @@ public class UserServiceTest {
         assertEquals(user.getFirstName(), createdUser.getFirstName());
         assertEquals(user.getEmail(), createdUser.getEmail());
 
-        // Verifica se o repositório foi chamado corretamente
+        // Verifica se o repositório foi chamado corretamente e o saldo inicial lançado no ledger
         verify(repository, times(1)).save(any(User.class));
+        verify(ledgerService, times(1)).openAccount(createdUser.getId(), userDTO.balance());
 
         logger.info("Teste testCreateUser concluído com sucesso.");
     }
 
     @Test
-    void testGetAllUsers() {
-        logger.info("Executando o teste testGetAllUsers...");
+    void testGetUsersPage() {
+        logger.info("Executando o teste testGetUsersPage...");
 
-        // Configura o mock para simular a recuperação de todos os usuários
-        when(repository.findAll()).thenReturn(List.of(user));
+        User other = new User();
+        other.setId(UUID.fromString("ffbd4db2-787b-4c9a-ad61-5a12c23c8096"));
 
-        // Chama o metodo do serviço para obter todos os usuários
-        List<User> users = userService.getAllUsers();
+        // Configura o mock para devolver um registro a mais do que o tamanho da página
+        when(repository.findFirstPage(Limit.of(2))).thenReturn(List.of(user, other));
+
+        // Chama o metodo do serviço para obter a primeira página
+        CursorPageDTO<User> page = userService.getUsersPage(null, 1);
 
         // Validações
-        assertNotNull(users);
-        assertEquals(1, users.size());
-        assertEquals(user.getEmail(), users.get(0).getEmail());
+        assertEquals(List.of(user), page.items());
+        assertNotNull(page.nextCursor());
 
-        // Verifica se o repositório foi chamado corretamente
-        verify(repository, times(1)).findAll();
+        // A próxima página começa depois do último usuário devolvido
+        when(repository.findPageAfter(user.getId(), Limit.of(2))).thenReturn(List.of(other));
+        CursorPageDTO<User> nextPage = userService.getUsersPage(page.nextCursor(), 1);
 
-        logger.info("Teste testGetAllUsers concluído com sucesso.");
+        assertEquals(List.of(other), nextPage.items());
+        assertNull(nextPage.nextCursor());
+
+        logger.info("Teste testGetUsersPage concluído com sucesso.");
+    }
+
+    @Test
+    void testGetUsersPage_InvalidCursor() {
+        logger.info("Executando o teste testGetUsersPage_InvalidCursor...");
+
+        // Espera-se que um cursor adulterado seja recusado com 400
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> userService.getUsersPage("nao-e-um-cursor", 10));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatusCode());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testGetUsersPage_DatabaseFailureIsNotInvalidCursor() {
+        logger.info("Executando o teste testGetUsersPage_DatabaseFailureIsNotInvalidCursor...");
+
+        // Cursor válido, mas o banco falha: o erro não pode virar 400
+        when(repository.findPageAfter(any(UUID.class), any(Limit.class)))
+            .thenThrow(new DataAccessResourceFailureException("Conexão recusada"));
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(user.getId().toString().getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> userService.getUsersPage(cursor, 10));
     }
 
     @Test
@@ -161,12 +263,33 @@ public class UserServiceTest {
         // Garante que nenhuma exceção será lançada
         assertDoesNotThrow(() -> userService.saveUser(user));
 
-        // Verifica se o repositório foi chamado corretamente
+        // Verifica se o repositório foi chamado corretamente e o perfil em cache descartado
         verify(repository, times(1)).save(user);
+        verify(profileCache, times(1)).invalidate(user.getId());
 
         logger.info("Teste testSaveUser concluído com sucesso.");
     }
 
+    @Test
+    void testValidateSender_MerchantRejectedFromCache() {
+        when(profileCache.get(user.getId()))
+            .thenReturn(Optional.of(new UserProfile(user.getId(), UserType.MERCHANT, user.getEmail(), user.getDocument())));
+
+        Exception exception = assertThrows(Exception.class, () -> userService.validateSender(user.getId()));
+
+        assertEquals("Logista não está autorizado a realizar transações", exception.getMessage());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void testValidateSender_UserNotFound() {
+        when(profileCache.get(user.getId())).thenReturn(Optional.empty());
+
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> userService.validateSender(user.getId()));
+
+        assertEquals("Usuário não encontrado com o ID: " + user.getId(), exception.getMessage());
+    }
+
     @Test
     void testSaveUserThrowsException() {
         logger.info("Executando o teste testSaveUserThrowsException...");